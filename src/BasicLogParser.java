@@ -7,8 +7,18 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * This class parses a log file only enough to be able to determine the types of log
@@ -16,6 +26,7 @@ import java.io.IOException;
  */
 public class BasicLogParser
 {
+    private static final XMLInputFactory STREAM_FACTORY = createStreamFactory();
     private final NodeList records;
     private final Document document;
     private final Element root;
@@ -55,13 +66,38 @@ public class BasicLogParser
      * @return the log level of that record (null if there is no such record)
      */
     public String getRecordLevel(int index)
+    {
+        return getRecordField(index, "level");
+    }
+
+    /**
+     * The message of the specified record
+     * @param index the record number we should look at
+     * @return the message of that record (null if there is no such record)
+     */
+    public String getRecordMessage(int index)
+    {
+        return getRecordField(index, "message");
+    }
+
+    /**
+     * The text of one of the elements of the specified record
+     * @param index the record number we should look at
+     * @param fieldName the name of the element, such as "level"
+     * @return the text of that element (null if there is no such record or element)
+     */
+    private String getRecordField(int index, String fieldName)
     {
         Node node = records.item(index);
+        if (node == null)
+        {
+            return null;
+        }
         NodeList children = node.getChildNodes();
         for(int i=0;i<children.getLength();i++)
         {
             Node child = children.item(i);
-            if (child.getNodeName().equals("level"))
+            if (child.getNodeName().equals(fieldName))
             {
                 String nodeValue = child.getChildNodes().item(0).getNodeValue();
                 return nodeValue;
@@ -69,4 +105,110 @@ public class BasicLogParser
         }
         return null;
     }
+
+    /**
+     * Count the records in a log file by level and message without building a document for it.
+     * The file is read as a stream, so this works on logs of any size, and it copes with logs that
+     * are cut short (such as ones whose SensorReadingsParser was never closed) by counting the
+     * records it did find.
+     *
+     * @param logFileTitle the name of the file we should parse
+     * @return the counts for that file
+     * @throws IOException if the file can't be read, or isn't a log other than being cut short
+     */
+    public static LogSummary summarize(String logFileTitle) throws IOException
+    {
+        Path logFile = Paths.get(logFileTitle);
+        LogSummary summary = new LogSummary(logFileTitle);
+        boolean insideLog = false;
+        try (InputStream in = Files.newInputStream(logFile))
+        {
+            XMLStreamReader reader = STREAM_FACTORY.createXMLStreamReader(in);
+            try
+            {
+                String level = null;
+                String message = null;
+                while (reader.hasNext())
+                {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT)
+                    {
+                        String name = reader.getLocalName();
+                        if (name.equals("log"))
+                        {
+                            insideLog = true;
+                        }
+                        else if (name.equals("record"))
+                        {
+                            level = null;
+                            message = null;
+                        }
+                        else if (name.equals("level"))
+                        {
+                            level = reader.getElementText();
+                        }
+                        else if (name.equals("message"))
+                        {
+                            message = reader.getElementText();
+                        }
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT
+                            && reader.getLocalName().equals("record"))
+                    {
+                        summary.addRecord(level, message);
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            if (!insideLog || !isOnLastLine(logFile, e.getLocation()))
+            {
+                throw new IOException(logFileTitle + " is not a log file: " + e.getMessage(), e);
+            }
+            summary.markIncomplete();
+        }
+        return summary;
+    }
+
+    /**
+     * A log that was cut short only goes wrong once its last line has been read, while one that
+     * is corrupt goes wrong wherever the corruption is.
+     */
+    private static boolean isOnLastLine(Path logFile, Location location) throws IOException
+    {
+        if (location == null)
+        {
+            return false;
+        }
+        int lines = 1;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile)))
+        {
+            int next;
+            while ((next = in.read()) >= 0)
+            {
+                if (next == '\n')
+                {
+                    lines++;
+                }
+            }
+        }
+        return location.getLineNumber() >= lines;
+    }
+
+    /**
+     * The logs refer to logger.dtd, which isn't needed just to count records and usually isn't
+     * next to the logs, so don't try to load it.
+     */
+    private static XMLInputFactory createStreamFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
 }
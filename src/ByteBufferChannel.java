@@ -0,0 +1,52 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A channel that reads the remaining bytes of a buffer.  Used to parse sensor data that is
+ * already in memory without going through a temporary file.
+ */
+class ByteBufferChannel implements ReadableByteChannel
+{
+    private final ByteBuffer buffer;
+    private boolean open = true;
+
+    /**
+     * @param buffer the buffer to read from.  Reading moves its position.
+     */
+    ByteBufferChannel(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws ClosedChannelException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+        if (!buffer.hasRemaining())
+        {
+            return -1;
+        }
+        int count = Math.min(buffer.remaining(), destination.remaining());
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(slice.position() + count);
+        destination.put(slice);
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    @Override
+    public void close()
+    {
+        open = false;
+    }
+}
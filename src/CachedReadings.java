@@ -0,0 +1,186 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * All of the entries of one sensor data file, stored column by column in a single buffer
+ * instead of as one ReadingSet per entry: every sequence number, then every sensor value, then
+ * every time slot ID.  The buffer can be on the heap or off it.
+ */
+public class CachedReadings
+{
+    private static final int NUMBER_OF_SENSORS = SensorReadingsParser.NUMBER_OF_SENSORS;
+    private static final int BYTES_PER_ENTRY =
+            Long.BYTES + Character.BYTES + NUMBER_OF_SENSORS * Integer.BYTES;
+    private static final int OBJECT_OVERHEAD = 64;
+    /**
+     * The most entries that fit in one buffer
+     */
+    static final int MAX_ENTRIES = Integer.MAX_VALUE / BYTES_PER_ENTRY;
+    private final int size;
+    private final ByteBuffer columns;
+    private final int sensorDataColumn;
+    private final int timeSlotIdColumn;
+
+    private CachedReadings(int size, ByteBuffer columns)
+    {
+        this.size = size;
+        this.columns = columns;
+        sensorDataColumn = Math.toIntExact((long) size * Long.BYTES);
+        timeSlotIdColumn = Math.toIntExact(
+                sensorDataColumn + (long) size * NUMBER_OF_SENSORS * Integer.BYTES);
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    public long getSequenceNumber(int index)
+    {
+        Objects.checkIndex(index, size);
+        return columns.getLong(index * Long.BYTES);
+    }
+
+    public char getTimeSlotID(int index)
+    {
+        Objects.checkIndex(index, size);
+        return columns.getChar(timeSlotIdColumn + index * Character.BYTES);
+    }
+
+    /**
+     * @param index the position of the entry
+     * @param sensor the offset of the sensor in the data section of the entry
+     * @return that sensor's value in that entry
+     */
+    public int getData(int index, int sensor)
+    {
+        Objects.checkIndex(index, size);
+        Objects.checkIndex(sensor, NUMBER_OF_SENSORS);
+        return columns.getInt(
+                sensorDataColumn + (index * NUMBER_OF_SENSORS + sensor) * Integer.BYTES);
+    }
+
+    /**
+     * @param index the position of the entry
+     * @return the entry, as the parser would have returned it
+     */
+    public ReadingSet get(int index)
+    {
+        int[] data = new int[NUMBER_OF_SENSORS];
+        for (int sensor = 0; sensor < NUMBER_OF_SENSORS; sensor++)
+        {
+            data[sensor] = getData(index, sensor);
+        }
+        return new ReadingSet(getSequenceNumber(index), getTimeSlotID(index), data);
+    }
+
+    /**
+     * @return true if the entries are stored outside of the Java heap
+     */
+    public boolean isOffHeap()
+    {
+        return columns.isDirect();
+    }
+
+    /**
+     * @return roughly how many bytes these entries take up
+     */
+    public long getMemoryFootprint()
+    {
+        return columns.capacity() + OBJECT_OVERHEAD;
+    }
+
+    /**
+     * Collects entries one at a time and then packs them into CachedReadings.  Once the entries
+     * would take up more than the memory budget, or wouldn't fit in one buffer, the builder drops
+     * them and ignores the rest.
+     */
+    static class Builder
+    {
+        private static final int INITIAL_CAPACITY = 64;
+        private final int maxEntries;
+        private int size = 0;
+        private boolean tooLarge = false;
+        private long[] sequenceNumbers = new long[INITIAL_CAPACITY];
+        private char[] timeSlotIds = new char[INITIAL_CAPACITY];
+        private int[] sensorData = new int[INITIAL_CAPACITY * NUMBER_OF_SENSORS];
+
+        /**
+         * @param memoryBudget the most bytes the built CachedReadings may take up
+         */
+        Builder(long memoryBudget)
+        {
+            maxEntries = (int) Math.max(0, Math.min(MAX_ENTRIES,
+                    (memoryBudget - OBJECT_OVERHEAD) / BYTES_PER_ENTRY));
+        }
+
+        /**
+         * @param parser a parser that has just advanced to the entry to add
+         */
+        void add(SensorReadingsParser parser)
+        {
+            if (tooLarge)
+            {
+                return;
+            }
+            if (size == maxEntries)
+            {
+                tooLarge = true;
+                sequenceNumbers = null;
+                timeSlotIds = null;
+                sensorData = null;
+                return;
+            }
+            if (size == sequenceNumbers.length)
+            {
+                int capacity = (int) Math.min(size * 2L, maxEntries);
+                sequenceNumbers = Arrays.copyOf(sequenceNumbers, capacity);
+                timeSlotIds = Arrays.copyOf(timeSlotIds, capacity);
+                sensorData = Arrays.copyOf(sensorData, capacity * NUMBER_OF_SENSORS);
+            }
+            sequenceNumbers[size] = parser.getSequenceNumber();
+            timeSlotIds[size] = parser.getTimeSlotID();
+            for (int sensor = 0; sensor < NUMBER_OF_SENSORS; sensor++)
+            {
+                sensorData[size * NUMBER_OF_SENSORS + sensor] = parser.getData(sensor);
+            }
+            size++;
+        }
+
+        /**
+         * @return true if the entries went over the memory budget, so there is nothing to build
+         */
+        boolean isTooLarge()
+        {
+            return tooLarge;
+        }
+
+        /**
+         * @param offHeap true to store the entries in a direct buffer
+         * @return the entries added so far
+         * @throws IllegalStateException if the entries went over the memory budget
+         */
+        CachedReadings build(boolean offHeap)
+        {
+            if (tooLarge)
+            {
+                throw new IllegalStateException("The entries don't fit in the memory budget");
+            }
+            int capacity = Math.toIntExact((long) size * BYTES_PER_ENTRY);
+            ByteBuffer columns = offHeap ? ByteBuffer.allocateDirect(capacity)
+                    : ByteBuffer.allocate(capacity);
+            columns.asLongBuffer().put(sequenceNumbers, 0, size);
+            columns.position(Math.toIntExact((long) size * Long.BYTES));
+            columns.asIntBuffer().put(sensorData, 0, size * NUMBER_OF_SENSORS);
+            columns.position(Math.toIntExact(
+                    (long) size * (Long.BYTES + NUMBER_OF_SENSORS * Integer.BYTES)));
+            columns.asCharBuffer().put(timeSlotIds, 0, size);
+            columns.clear();
+            return new CachedReadings(size, columns);
+        }
+    }
+}
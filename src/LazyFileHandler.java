@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.logging.ErrorManager;
+import java.util.logging.FileHandler;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log file that isn't created until there is something to put in it.  Most sensor files are
+ * clean, so this saves locking and writing a log file that would only hold an empty log element.
+ * If nothing is logged and there was no log file to begin with, none is created.  If there was
+ * one (say, from before the sensor file was fixed), it is replaced with an empty log on close,
+ * the same as a FileHandler would leave, so its old records aren't taken as current.
+ *
+ * The level, formatter, encoding, filter and error manager set on this handler are passed on to
+ * the FileHandler when it is created.
+ */
+public class LazyFileHandler extends Handler
+{
+    private final String logFileTitle;
+    private final boolean replacesOldLog;
+    private FileHandler fileHandler = null;
+    private boolean closed = false;
+
+    /**
+     * @param logFileTitle the title of the log file to create when the first record comes in
+     */
+    public LazyFileHandler(String logFileTitle)
+    {
+        this.logFileTitle = logFileTitle;
+        replacesOldLog = Files.exists(Paths.get(logFileTitle));
+    }
+
+    @Override
+    public synchronized void publish(LogRecord record)
+    {
+        if (closed || !isLoggable(record))
+        {
+            return;
+        }
+        if (fileHandler == null && !openFileHandler())
+        {
+            return;
+        }
+        fileHandler.publish(record);
+    }
+
+    /**
+     * Create the log file, passing on this handler's settings
+     *
+     * @return false if it couldn't be created, which closes this handler
+     */
+    private boolean openFileHandler()
+    {
+        try
+        {
+            fileHandler = new FileHandler(logFileTitle);
+            fileHandler.setLevel(getLevel());
+            if (getFormatter() != null)
+            {
+                fileHandler.setFormatter(getFormatter());
+            }
+            fileHandler.setEncoding(getEncoding());
+            fileHandler.setFilter(getFilter());
+            fileHandler.setErrorManager(getErrorManager());
+        }
+        catch (IOException e)
+        {
+            if (fileHandler != null)
+            {
+                fileHandler.close();
+                fileHandler = null;
+            }
+            reportError("Could not create " + logFileTitle, e, ErrorManager.OPEN_FAILURE);
+            closed = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the log file has been created, either for a record or to replace an old
+     * log on close
+     */
+    public synchronized boolean isLogFileCreated()
+    {
+        return fileHandler != null;
+    }
+
+    @Override
+    public synchronized void flush()
+    {
+        if (fileHandler != null)
+        {
+            fileHandler.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        if (fileHandler == null && replacesOldLog && !openFileHandler())
+        {
+            return;
+        }
+        closed = true;
+        if (fileHandler != null)
+        {
+            fileHandler.close();
+        }
+    }
+}
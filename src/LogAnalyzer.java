@@ -0,0 +1,122 @@
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Summarizes every log file in a directory at once, for questions about a whole day's run such
+ * as which stations had the most readings over 150% of their max.  Each file is read as a stream
+ * by BasicLogParser.summarize, and the files are spread over a pool of threads, biggest first, so
+ * the work finishes about when the total bytes have been read by all the threads together.
+ */
+public class LogAnalyzer
+{
+    private static final String LOG_FILE_PATTERN = "*.log";
+
+    /**
+     * Summarize every log file in a directory using one thread per processor
+     *
+     * @param directoryTitle the directory holding the log files
+     * @return the summaries, in order of log file title
+     * @throws IOException if the directory or one of its logs can't be read, or one of the
+     * logs is corrupt
+     */
+    public static List<LogSummary> analyzeDirectory(String directoryTitle) throws IOException
+    {
+        return analyzeDirectory(directoryTitle, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Summarize every log file in a directory
+     *
+     * @param directoryTitle the directory holding the log files
+     * @param numberOfThreads how many log files to read at the same time
+     * @return the summaries, in order of log file title
+     * @throws IOException if the directory or one of its logs can't be read, or one of the
+     * logs is corrupt
+     */
+    public static List<LogSummary> analyzeDirectory(String directoryTitle, int numberOfThreads)
+            throws IOException
+    {
+        Map<Path, Long> sizes = new HashMap<>();
+        try (DirectoryStream<Path> directory =
+                     Files.newDirectoryStream(Paths.get(directoryTitle), LOG_FILE_PATTERN))
+        {
+            for (Path logFile : directory)
+            {
+                sizes.put(logFile, Files.size(logFile));
+            }
+        }
+        List<Path> logFiles = new ArrayList<>(sizes.keySet());
+        logFiles.sort(Comparator.comparing(sizes::get).reversed());
+
+        ExecutorService threads = Executors.newFixedThreadPool(numberOfThreads);
+        try
+        {
+            List<Future<LogSummary>> pending = new ArrayList<>();
+            for (Path logFile : logFiles)
+            {
+                pending.add(threads.submit(() -> BasicLogParser.summarize(logFile.toString())));
+            }
+            List<LogSummary> summaries = new ArrayList<>();
+            for (Future<LogSummary> summary : pending)
+            {
+                summaries.add(summary.get());
+            }
+            summaries.sort(Comparator.comparing(LogSummary::getLogFileTitle));
+            return summaries;
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading logs", e);
+        }
+        finally
+        {
+            threads.shutdownNow();
+        }
+    }
+
+    /**
+     * Find the logs with the most records of a given level and message
+     *
+     * @param summaries the summaries to look through
+     * @param level a log level, such as "SEVERE"
+     * @param message the message logged
+     * @param limit the most summaries to return
+     * @return the summaries with at least one such record, most records first
+     */
+    public static List<LogSummary> mostFrequent(List<LogSummary> summaries, String level,
+                                                String message, int limit)
+    {
+        List<LogSummary> matching = new ArrayList<>();
+        for (LogSummary summary : summaries)
+        {
+            if (summary.getCount(level, message) > 0)
+            {
+                matching.add(summary);
+            }
+        }
+        matching.sort(Comparator.comparingInt(
+                (LogSummary summary) -> summary.getCount(level, message)).reversed());
+        return matching.subList(0, Math.min(limit, matching.size()));
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * How many records of each level, and of each message within a level, a log file holds
+ */
+public class LogSummary
+{
+    private final String logFileTitle;
+    private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+    private int numberOfRecords = 0;
+    private boolean complete = true;
+
+    /**
+     * @param logFileTitle the log file being summarized
+     */
+    public LogSummary(String logFileTitle)
+    {
+        this.logFileTitle = logFileTitle;
+    }
+
+    /**
+     * Count one more record
+     *
+     * @param level the log level of the record
+     * @param message the message of the record
+     */
+    void addRecord(String level, String message)
+    {
+        counts.computeIfAbsent(level, key -> new HashMap<>()).merge(message, 1, Integer::sum);
+        numberOfRecords++;
+    }
+
+    /**
+     * Note that the log file ended before its closing tag, so not every record may be counted
+     */
+    void markIncomplete()
+    {
+        complete = false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LogSummary{" +
+                "logFileTitle='" + logFileTitle + '\'' +
+                ", numberOfRecords=" + numberOfRecords +
+                ", counts=" + counts +
+                ", complete=" + complete +
+                '}';
+    }
+
+    public String getLogFileTitle()
+    {
+        return logFileTitle;
+    }
+
+    /**
+     * @return the number of log entries in the file
+     */
+    public int getNumberOfRecords()
+    {
+        return numberOfRecords;
+    }
+
+    /**
+     * @return false if the file was cut short, so some records may be missing from the counts
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * @param level a log level, such as "SEVERE"
+     * @return the number of records with that level
+     */
+    public int getCount(String level)
+    {
+        int count = 0;
+        for (int messageCount : getMessageCounts(level).values())
+        {
+            count += messageCount;
+        }
+        return count;
+    }
+
+    /**
+     * @param level a log level, such as "SEVERE"
+     * @param message the message logged
+     * @return the number of records with that level and message
+     */
+    public int getCount(String level, String message)
+    {
+        return getMessageCounts(level).getOrDefault(message, 0);
+    }
+
+    /**
+     * @return every level that has at least one record
+     */
+    public Set<String> getLevels()
+    {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    /**
+     * @param level a log level, such as "SEVERE"
+     * @return how many times each message was logged at that level
+     */
+    public Map<String, Integer> getMessageCounts(String level)
+    {
+        return Collections.unmodifiableMap(counts.getOrDefault(level, Collections.emptyMap()));
+    }
+}
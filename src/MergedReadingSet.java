@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+/**
+ * One time slot of a multi-station merge: the reading each station had for a given cycle and
+ * time slot ID.  Stations that had no reading for that slot have a null in their position.
+ */
+public class MergedReadingSet
+{
+    private final long cycle;
+    private final char timeSlotID;
+    private final ReadingSet[] readings;
+
+    /**
+     * @param cycle the number of times the time slot IDs had wrapped before this slot (0 for the
+     *              first A through O run)
+     * @param timeSlotID the time slot ID every reading in this row shares
+     * @param readings one entry per station, null where the station had no reading
+     */
+    public MergedReadingSet(long cycle, char timeSlotID, ReadingSet[] readings)
+    {
+        this.cycle = cycle;
+        this.timeSlotID = timeSlotID;
+        this.readings = readings;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MergedReadingSet{" +
+                "cycle=" + cycle +
+                ", timeSlotID='" + timeSlotID + '\'' +
+                ", readings=" + Arrays.toString(readings) +
+                '}';
+    }
+
+    public long getCycle()
+    {
+        return cycle;
+    }
+
+    public char getTimeSlotID()
+    {
+        return timeSlotID;
+    }
+
+    /**
+     * @param station the position of the station in the list given to the merger
+     * @return that station's reading for this slot, or null if it didn't have one
+     */
+    public ReadingSet getReading(int station)
+    {
+        return readings[station];
+    }
+
+    /**
+     * @param station the position of the station in the list given to the merger
+     * @return true if that station had no reading for this slot
+     */
+    public boolean isMissing(int station)
+    {
+        return readings[station] == null;
+    }
+
+    public int getNumberOfStations()
+    {
+        return readings.length;
+    }
+}
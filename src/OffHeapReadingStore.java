@@ -0,0 +1,262 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a long run of readings outside of the Java heap, for holding months of entries without
+ * one ReadingSet and int[] per entry for the garbage collector to walk.  Each entry is a fixed
+ * width row of one long followed by its sensor values, so a row is 20 bytes with three sensors.
+ * The long holds the time slot ID in its top 16 bits and the sequence number in the rest, which
+ * is room for far more time slots than any station will ever send.
+ *
+ * Rows go in direct buffers of a fixed number of rows each, so the store grows without copying
+ * what it already holds.  A Cursor reads rows straight out of those buffers.  Neither the store
+ * nor its cursors are safe to use from more than one thread at a time.
+ */
+public class OffHeapReadingStore
+{
+    /**
+     * How many rows each buffer holds unless the store is told otherwise
+     */
+    public static final int DEFAULT_ROWS_PER_CHUNK = 65536;
+    private static final int OBJECT_OVERHEAD = 64;
+    private static final int SEQUENCE_NUMBER_BITS = 48;
+    private static final long SEQUENCE_NUMBER_MASK = (1L << SEQUENCE_NUMBER_BITS) - 1;
+    private final int numberOfSensors;
+    private final int rowsPerChunk;
+    private final int bytesPerRow;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private long size = 0;
+
+    /**
+     * Make an empty store for entries from SensorReadingsParser
+     */
+    public OffHeapReadingStore()
+    {
+        this(SensorReadingsParser.NUMBER_OF_SENSORS, DEFAULT_ROWS_PER_CHUNK);
+    }
+
+    /**
+     * @param numberOfSensors how many sensor values each entry has
+     * @param rowsPerChunk how many rows to put in each direct buffer
+     */
+    public OffHeapReadingStore(int numberOfSensors, int rowsPerChunk)
+    {
+        if (numberOfSensors < 1 || rowsPerChunk < 1)
+        {
+            throw new IllegalArgumentException("A store needs at least one sensor and one row");
+        }
+        this.numberOfSensors = numberOfSensors;
+        this.rowsPerChunk = rowsPerChunk;
+        bytesPerRow = Long.BYTES + numberOfSensors * Integer.BYTES;
+        if ((long) rowsPerChunk * bytesPerRow > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Too many rows per chunk: " + rowsPerChunk);
+        }
+    }
+
+    /**
+     * Add an entry to the end of the store
+     *
+     * @param reading the entry, such as a parser that has just advanced to it
+     * @throws IllegalArgumentException if the sequence number doesn't fit in 48 bits
+     */
+    public void append(ReadingView reading)
+    {
+        long sequenceNumber = reading.getSequenceNumber();
+        if ((sequenceNumber & ~SEQUENCE_NUMBER_MASK) != 0)
+        {
+            throw new IllegalArgumentException("Can't store sequence number " + sequenceNumber);
+        }
+        int chunk = (int) (size / rowsPerChunk);
+        if (chunk == chunks.size())
+        {
+            chunks.add(ByteBuffer.allocateDirect(rowsPerChunk * bytesPerRow)
+                    .order(ByteOrder.nativeOrder()));
+        }
+        ByteBuffer rows = chunks.get(chunk);
+        int offset = (int) (size % rowsPerChunk) * bytesPerRow;
+        rows.putLong(offset,
+                ((long) reading.getTimeSlotID() << SEQUENCE_NUMBER_BITS) | sequenceNumber);
+        offset += Long.BYTES;
+        for (int sensor = 0; sensor < numberOfSensors; sensor++)
+        {
+            rows.putInt(offset + sensor * Integer.BYTES, reading.getData(sensor));
+        }
+        size++;
+    }
+
+    /**
+     * Add every entry the parser has left.  Whatever the parser throws is passed on, with the
+     * entries before it already added.
+     *
+     * @param parser the parser to read from; it isn't closed
+     * @return how many entries were added
+     */
+    public long appendAll(SensorReadingsParser parser)
+    {
+        long added = 0;
+        while (parser.advance())
+        {
+            append(parser);
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * @return the number of entries in the store
+     */
+    public long size()
+    {
+        return size;
+    }
+
+    /**
+     * @param row the position of the entry
+     * @return a copy of the entry, as the parser would have returned it
+     */
+    public ReadingSet get(long row)
+    {
+        Cursor cursor = cursor();
+        cursor.seek(row);
+        return cursor.toReadingSet();
+    }
+
+    /**
+     * @return a cursor placed before the first entry
+     */
+    public Cursor cursor()
+    {
+        return new Cursor();
+    }
+
+    /**
+     * @return how many bytes each entry takes up
+     */
+    public int getBytesPerRow()
+    {
+        return bytesPerRow;
+    }
+
+    /**
+     * @return roughly how many bytes the store takes up, counting the unused end of the last
+     * buffer
+     */
+    public long getMemoryFootprint()
+    {
+        return (long) chunks.size() * rowsPerChunk * bytesPerRow + OBJECT_OVERHEAD;
+    }
+
+    /**
+     * Drop every entry.  The buffers are freed once the garbage collector finds them, so cursors
+     * from before this shouldn't be used again.
+     */
+    public void clear()
+    {
+        chunks.clear();
+        size = 0;
+    }
+
+    /**
+     * Walks the rows of the store, acting as the entry it is on without copying it out.  Entries
+     * appended after the cursor was made can be reached too.
+     */
+    public class Cursor implements ReadingView
+    {
+        private long row = -1;
+        private ByteBuffer rows;
+        private int offset;
+
+        private Cursor()
+        {
+        }
+
+        /**
+         * Move to the next entry
+         *
+         * @return false if there are no more entries, leaving the cursor where it was
+         */
+        public boolean advance()
+        {
+            if (row + 1 >= size)
+            {
+                return false;
+            }
+            seek(row + 1);
+            return true;
+        }
+
+        /**
+         * Move to any entry
+         *
+         * @param row the position of the entry
+         * @throws IndexOutOfBoundsException if there is no such entry
+         */
+        public void seek(long row)
+        {
+            if (row < 0 || row >= size)
+            {
+                throw new IndexOutOfBoundsException("No entry " + row + " in " + size);
+            }
+            this.row = row;
+            rows = chunks.get((int) (row / rowsPerChunk));
+            offset = (int) (row % rowsPerChunk) * bytesPerRow;
+        }
+
+        /**
+         * @return the position of the entry the cursor is on, or -1 before the first advance
+         */
+        public long getRow()
+        {
+            return row;
+        }
+
+        @Override
+        public char getTimeSlotID()
+        {
+            checkOnRow();
+            return (char) (rows.getLong(offset) >>> SEQUENCE_NUMBER_BITS);
+        }
+
+        @Override
+        public long getSequenceNumber()
+        {
+            checkOnRow();
+            return rows.getLong(offset) & SEQUENCE_NUMBER_MASK;
+        }
+
+        @Override
+        public int getData(int index)
+        {
+            checkOnRow();
+            if (index < 0 || index >= numberOfSensors)
+            {
+                throw new IndexOutOfBoundsException("No sensor " + index);
+            }
+            return rows.getInt(offset + Long.BYTES + index * Integer.BYTES);
+        }
+
+        /**
+         * @return a copy of the entry the cursor is on, to keep after the cursor moves
+         */
+        public ReadingSet toReadingSet()
+        {
+            int[] data = new int[numberOfSensors];
+            for (int sensor = 0; sensor < numberOfSensors; sensor++)
+            {
+                data[sensor] = getData(sensor);
+            }
+            return new ReadingSet(getSequenceNumber(), getTimeSlotID(), data);
+        }
+
+        private void checkOnRow()
+        {
+            if (rows == null)
+            {
+                throw new IllegalStateException("The cursor isn't on an entry yet");
+            }
+        }
+    }
+}
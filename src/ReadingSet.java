@@ -1,13 +1,31 @@
 import java.util.Arrays;
 
-class ReadingSet
+class ReadingSet implements ReadingView
 {
     private static final int NUMBER_OF_READINGS = 3;
+    private long sequenceNumber;
     private char timeSlotID;
     private int[] data;
 
+    /**
+     * Create a reading set in the first cycle of time slot IDs
+     *
+     * @param timeSlotID the time slot ID of the readings
+     * @param readings the value of each sensor
+     */
     public ReadingSet(char timeSlotID, int[] readings)
     {
+        this(timeSlotID - SensorReadingsParser.FIRST_TIME_SLOT_ID, timeSlotID, readings);
+    }
+
+    /**
+     * @param sequenceNumber the number of time slots since the A of the first cycle
+     * @param timeSlotID the time slot ID of the readings
+     * @param readings the value of each sensor
+     */
+    public ReadingSet(long sequenceNumber, char timeSlotID, int[] readings)
+    {
+        this.sequenceNumber = sequenceNumber;
         this.timeSlotID = timeSlotID;
         this.data = readings;
     }
@@ -16,11 +34,13 @@ class ReadingSet
     public String toString()
     {
         return "ReadingSet{" +
-                "timeSlotID='" + timeSlotID + '\'' +
+                "sequenceNumber=" + sequenceNumber +
+                ", timeSlotID='" + timeSlotID + '\'' +
                 ", data=" + Arrays.toString(data) +
                 '}';
     }
 
+    @Override
     public int getData(int index)
     {
         return data[index];
@@ -31,8 +51,15 @@ class ReadingSet
         return data;
     }
 
+    @Override
     public char getTimeSlotID()
     {
         return timeSlotID;
     }
-}
\ No newline at end of file
+
+    @Override
+    public long getSequenceNumber()
+    {
+        return sequenceNumber;
+    }
+}
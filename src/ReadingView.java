@@ -0,0 +1,31 @@
+/**
+ * Read-only access to the readings of one entry, wherever they are kept: in a ReadingSet, in a
+ * SensorReadingsParser that has just advanced to them, or in a row of an OffHeapReadingStore.
+ */
+public interface ReadingView
+{
+    /**
+     * @return the time slot ID of the entry
+     */
+    char getTimeSlotID();
+
+    /**
+     * @return the number of time slots since the A of the first cycle.  Unlike the time slot
+     * ID this doesn't wrap, so it orders readings from the same station.
+     */
+    long getSequenceNumber();
+
+    /**
+     * @param index the offset of the sensor in the data section of the entry
+     * @return that sensor's value
+     */
+    int getData(int index);
+
+    /**
+     * @return how many times the time slot IDs had wrapped from O to A before this entry
+     */
+    default long getCycle()
+    {
+        return getSequenceNumber() / SensorReadingsParser.READINGS_PER_GROUP;
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Somewhere a SensorReadingsParser can read sensor data from.  A source only has to be able to
+ * hand out a channel positioned at the start of the data (the three range lines followed by the
+ * records), so the parser does not care whether the bytes come from a file, a socket, a pipe or
+ * a buffer already sitting in memory.
+ *
+ * Sources made from a file or a buffer can be opened any number of times.  Sources made from a
+ * channel or stream the caller already opened can only be opened once, since there is no way
+ * to get back to the start of the data.
+ */
+public interface SensorDataSource
+{
+    /**
+     * Open the channel the parser should read from
+     *
+     * @return a channel positioned at the first byte of the sensor data
+     * @throws IOException if the underlying data can't be opened
+     * @throws IllegalStateException if the source can only be opened once and already has been
+     */
+    ReadableByteChannel open() throws IOException;
+
+    /**
+     * A source that reads from a file on disk
+     *
+     * @param fileTitle the title of the file to read
+     * @return the source
+     */
+    static SensorDataSource fromFile(String fileTitle)
+    {
+        return () -> FileChannel.open(Paths.get(fileTitle));
+    }
+
+    /**
+     * A source that reads from a channel the caller has already opened.  It can only be opened
+     * once.
+     *
+     * @param channel the channel to read.  A socket or pipe must be in blocking mode.
+     * @return the source
+     * @throws IllegalArgumentException if the channel is in non-blocking mode
+     */
+    static SensorDataSource fromChannel(ReadableByteChannel channel)
+    {
+        if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+        {
+            throw new IllegalArgumentException("Non-blocking channels aren't supported");
+        }
+        AtomicBoolean opened = new AtomicBoolean(false);
+        return () ->
+        {
+            if (opened.getAndSet(true))
+            {
+                throw new IllegalStateException("A channel source can only be opened once");
+            }
+            return channel;
+        };
+    }
+
+    /**
+     * A source that reads from a stream the caller has already opened.  It can only be opened
+     * once.
+     *
+     * @param stream the stream to read
+     * @return the source
+     */
+    static SensorDataSource fromInputStream(InputStream stream)
+    {
+        return fromChannel(Channels.newChannel(stream));
+    }
+
+    /**
+     * A source that reads the remaining bytes of a buffer.  The buffer's position and limit are
+     * not changed, so the same buffer can be parsed more than once.
+     *
+     * @param buffer the buffer holding the sensor data
+     * @return the source
+     */
+    static SensorDataSource fromBuffer(ByteBuffer buffer)
+    {
+        return () -> new ByteBufferChannel(buffer.duplicate());
+    }
+}
@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the lines of a sensor data channel, keeping track of the byte offset of everything it
+ * has handed out so a parse can later be picked up again from the same place.  Lines end with
+ * "\n", "\r\n" or "\r", the same as for a Scanner.
+ *
+ * Buffers are handed back once the channel is used up or the reader is closed, and the next
+ * reader on the same thread picks them up again, so working through lots of small files doesn't
+ * allocate a new buffer for each one.
+ */
+class SensorLineReader
+{
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final ThreadLocal<byte[]> SPARE_BUFFER = new ThreadLocal<>();
+    private final ReadableByteChannel channel;
+    private byte[] buffer = null;
+    private int start = 0;
+    private int end = 0;
+    private long bufferOffset = 0;
+    private boolean reachedEndOfChannel = false;
+
+    /**
+     * @param channel the channel to read from, positioned at the first line.  It must be in
+     *                blocking mode.
+     */
+    SensorLineReader(ReadableByteChannel channel)
+    {
+        this.channel = channel;
+    }
+
+    /**
+     * @return true if there is at least one more line, even an empty one
+     */
+    boolean hasNextLine()
+    {
+        return start < end || fill();
+    }
+
+    /**
+     * @return true if anything other than whitespace is left
+     */
+    boolean hasNext()
+    {
+        int index = start;
+        while (true)
+        {
+            if (index == end)
+            {
+                int consumed = index - start;
+                if (!fill())
+                {
+                    return false;
+                }
+                index = start + consumed;
+            }
+            if (!Character.isWhitespace(buffer[index]))
+            {
+                return true;
+            }
+            index++;
+        }
+    }
+
+    /**
+     * Read up to the end of the current line
+     *
+     * @return the line, without its line separator
+     * @throws NoSuchElementException if there are no more lines
+     */
+    String nextLine()
+    {
+        if (!hasNextLine())
+        {
+            throw new NoSuchElementException("No line found");
+        }
+        int index = start;
+        while (true)
+        {
+            if (index == end)
+            {
+                int scanned = index - start;
+                if (!fill())
+                {
+                    String line = decode(start, end);
+                    start = end;
+                    return line;
+                }
+                index = start + scanned;
+            }
+            byte current = buffer[index];
+            if (current == '\n' || current == '\r')
+            {
+                String line = decode(start, index);
+                start = index + 1;
+                if (current == '\r' && (start < end || fill()) && buffer[start] == '\n')
+                {
+                    start++;
+                }
+                return line;
+            }
+            index++;
+        }
+    }
+
+    /**
+     * @return the byte offset, from the start of the channel, of the next unread byte
+     */
+    long getPosition()
+    {
+        return bufferOffset + start;
+    }
+
+    /**
+     * Continue reading from another byte offset
+     *
+     * @param position the byte offset, from the start of the channel, to read from next
+     * @throws IOException if the channel can't change position
+     */
+    void seek(long position) throws IOException
+    {
+        if (!(channel instanceof SeekableByteChannel))
+        {
+            throw new IOException("Sensor data source does not support seeking");
+        }
+        ((SeekableByteChannel) channel).position(position);
+        releaseBuffer();
+        bufferOffset = position;
+        start = 0;
+        end = 0;
+        reachedEndOfChannel = false;
+    }
+
+    /**
+     * Close the channel this is reading from
+     */
+    void close()
+    {
+        releaseBuffer();
+        try
+        {
+            channel.close();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Read more of the channel into the buffer, keeping the unread bytes
+     *
+     * @return true if at least one more byte was read
+     */
+    private boolean fill()
+    {
+        if (reachedEndOfChannel)
+        {
+            return false;
+        }
+        if (buffer == null)
+        {
+            buffer = takeSpareBuffer();
+        }
+        if (start > 0)
+        {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            bufferOffset += start;
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length)
+        {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, end);
+            buffer = larger;
+        }
+        try
+        {
+            int count = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+            if (count == 0)
+            {
+                // there is always room in the buffer, so only a non-blocking channel does this
+                throw new IOException("Read no data; non-blocking channels aren't supported");
+            }
+            if (count < 0)
+            {
+                reachedEndOfChannel = true;
+                if (start == end)
+                {
+                    releaseBuffer();
+                }
+                return false;
+            }
+            end += count;
+            return true;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Give the buffer back so the next reader on this thread can use it.  Buffers that had to
+     * grow for very long lines aren't kept.
+     */
+    private void releaseBuffer()
+    {
+        if (buffer != null && buffer.length == INITIAL_BUFFER_SIZE)
+        {
+            SPARE_BUFFER.set(buffer);
+        }
+        buffer = null;
+        bufferOffset += start;
+        start = 0;
+        end = 0;
+    }
+
+    private static byte[] takeSpareBuffer()
+    {
+        byte[] spare = SPARE_BUFFER.get();
+        if (spare == null)
+        {
+            return new byte[INITIAL_BUFFER_SIZE];
+        }
+        SPARE_BUFFER.set(null);
+        return spare;
+    }
+
+    private String decode(int from, int to)
+    {
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+}
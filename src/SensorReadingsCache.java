@@ -0,0 +1,240 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps the parsed entries of recently used sensor data files so they don't have to be parsed
+ * again.  A file is parsed (and its log written) the first time it is asked for; after that its
+ * entries come straight from the cache for as long as the file keeps the same modification time
+ * and size.  When the cached entries take up more than the memory budget, the files that were
+ * used least recently are dropped.  A file whose entries alone would go over the budget is
+ * still parsed, so its log is written, but its entries are dropped as soon as they go over.
+ *
+ * Files are parsed outside of the cache's lock, so hits don't wait behind a slow parse.  Only
+ * threads asking for the same file wait for each other, so each file is parsed once.
+ */
+public class SensorReadingsCache
+{
+    private final long memoryBudget;
+    private final boolean offHeap;
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<Path, CompletableFuture<CachedReadings>> parsing =
+            new ConcurrentHashMap<>();
+    private long memoryUsed = 0;
+
+    /**
+     * @param memoryBudget roughly how many bytes the cached entries may take up
+     * @param offHeap true to keep the cached entries outside of the Java heap
+     */
+    public SensorReadingsCache(long memoryBudget, boolean offHeap)
+    {
+        this.memoryBudget = memoryBudget;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Get all of the entries of a sensor data file, parsing it only if it isn't already cached
+     * or has changed since it was
+     *
+     * @param fileTitle the title of the file
+     * @return its entries, or null if they would take up more than the memory budget on their
+     * own, in which case the caller has to read the file with a SensorReadingsParser
+     * @throws IOException if the file can't be read or its log can't be created
+     */
+    public CachedReadings get(String fileTitle) throws IOException
+    {
+        Path path = Paths.get(fileTitle).toAbsolutePath().normalize();
+        CachedReadings readings = getCached(path);
+        if (readings != null)
+        {
+            return readings;
+        }
+        CompletableFuture<CachedReadings> parse = new CompletableFuture<>();
+        CompletableFuture<CachedReadings> otherParse = parsing.putIfAbsent(path, parse);
+        if (otherParse != null)
+        {
+            return waitFor(otherParse);
+        }
+        try
+        {
+            // another thread may have finished parsing it since it was looked for
+            readings = getCached(path);
+            if (readings == null)
+            {
+                BasicFileAttributes attributes =
+                        Files.readAttributes(path, BasicFileAttributes.class);
+                readings = parse(fileTitle);
+                if (readings != null)
+                {
+                    put(path, new Entry(attributes.lastModifiedTime().toMillis(),
+                            attributes.size(), readings));
+                }
+            }
+            parse.complete(readings);
+            return readings;
+        }
+        catch (Throwable e)
+        {
+            parse.completeExceptionally(e);
+            throw e;
+        }
+        finally
+        {
+            parsing.remove(path, parse);
+        }
+    }
+
+    /**
+     * @return roughly how many bytes the cached entries take up
+     */
+    public synchronized long getMemoryUsed()
+    {
+        return memoryUsed;
+    }
+
+    /**
+     * @return the number of files that are cached
+     */
+    public synchronized int getNumberOfFiles()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Drop every cached file
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        memoryUsed = 0;
+    }
+
+    /**
+     * @return the cached entries of a file, or null if it isn't cached or has changed since
+     */
+    private synchronized CachedReadings getCached(Path path) throws IOException
+    {
+        Entry entry = entries.get(path);
+        if (entry == null)
+        {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        if (entry.lastModified == attributes.lastModifiedTime().toMillis()
+                && entry.size == attributes.size())
+        {
+            return entry.readings;
+        }
+        remove(path);
+        return null;
+    }
+
+    private synchronized void put(Path path, Entry entry)
+    {
+        if (entries.containsKey(path))
+        {
+            remove(path);
+        }
+        if (entry.readings.getMemoryFootprint() <= memoryBudget)
+        {
+            entries.put(path, entry);
+            memoryUsed += entry.readings.getMemoryFootprint();
+            evict();
+        }
+    }
+
+    /**
+     * Wait for another thread's parse of the same file
+     */
+    private static CachedReadings waitFor(CompletableFuture<CachedReadings> parse)
+            throws IOException
+    {
+        try
+        {
+            return parse.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a parse");
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the file's entries, or null if they don't fit in the memory budget
+     */
+    private CachedReadings parse(String fileTitle) throws IOException
+    {
+        SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+        CachedReadings.Builder builder = new CachedReadings.Builder(memoryBudget);
+        try
+        {
+            while (parser.advance())
+            {
+                builder.add(parser);
+            }
+        }
+        finally
+        {
+            parser.close();
+        }
+        return builder.isTooLarge() ? null : builder.build(offHeap);
+    }
+
+    private void remove(Path path)
+    {
+        memoryUsed -= entries.remove(path).readings.getMemoryFootprint();
+    }
+
+    /**
+     * Drop the least recently used files until the rest fit in the memory budget
+     */
+    private void evict()
+    {
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (memoryUsed > memoryBudget)
+        {
+            memoryUsed -= leastRecentlyUsed.next().readings.getMemoryFootprint();
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    /**
+     * A cached file, along with what the file looked like when it was parsed
+     */
+    private static class Entry
+    {
+        private final long lastModified;
+        private final long size;
+        private final CachedReadings readings;
+
+        private Entry(long lastModified, long size, CachedReadings readings)
+        {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.readings = readings;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A sparse index over a sensor data file.  Every few cycles it remembers where in the file the
+ * parser was and what state it was in, so a range of cycles can be read by jumping close to the
+ * start of the range and parsing only from there.  The index lives in a side file whose title
+ * matches the data file with ".idx" added at the end.
+ *
+ * The index is built while the file is being parsed anyway: wrap the parser in a Builder and
+ * move through the entries with it.
+ */
+public class SensorReadingsIndex
+{
+    public static final int DEFAULT_CYCLES_PER_ENTRY = 64;
+    private static final int INDEX_FILE_MAGIC = 0x53524958;
+    private static final int INDEX_FILE_VERSION = 1;
+    private static final int NUMBER_OF_SENSORS = SensorReadingsParser.NUMBER_OF_SENSORS;
+    private final int cyclesPerEntry;
+    private final int numberOfEntries;
+    private final long[] positions;
+    private final long[] sequenceNumbers;
+    private final char[] expectedTimeSlotIds;
+    private final char[] timeSlotIds;
+    private final int[] sensorData;
+
+    private SensorReadingsIndex(int cyclesPerEntry, int numberOfEntries, long[] positions,
+                                long[] sequenceNumbers, char[] expectedTimeSlotIds,
+                                char[] timeSlotIds, int[] sensorData)
+    {
+        this.cyclesPerEntry = cyclesPerEntry;
+        this.numberOfEntries = numberOfEntries;
+        this.positions = positions;
+        this.sequenceNumbers = sequenceNumbers;
+        this.expectedTimeSlotIds = expectedTimeSlotIds;
+        this.timeSlotIds = timeSlotIds;
+        this.sensorData = sensorData;
+    }
+
+    /**
+     * Parse a whole sensor data file, logging its errors the usual way, and write its index
+     *
+     * @param fileTitle the title of the data file
+     * @param cyclesPerEntry how many cycles apart the index entries should be
+     * @return the index that was written
+     * @throws IOException if the data file can't be read or the index can't be written
+     */
+    public static SensorReadingsIndex create(String fileTitle, int cyclesPerEntry)
+            throws IOException
+    {
+        SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+        Builder builder = new Builder(parser, cyclesPerEntry);
+        try
+        {
+            while (builder.advance())
+            {
+                // the builder only needs to see every entry go by
+            }
+        }
+        finally
+        {
+            parser.close();
+        }
+        SensorReadingsIndex index = builder.build();
+        index.write(fileTitle);
+        return index;
+    }
+
+    /**
+     * Read the index that was written for a data file
+     *
+     * @param fileTitle the title of the data file (not of the index)
+     * @return the index
+     * @throws IOException if there is no index, or the data file has changed since it was written
+     */
+    public static SensorReadingsIndex load(String fileTitle) throws IOException
+    {
+        Path dataFile = Paths.get(fileTitle);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(Paths.get(indexTitle(fileTitle))))))
+        {
+            if (in.readInt() != INDEX_FILE_MAGIC || in.readInt() != INDEX_FILE_VERSION)
+            {
+                throw new IOException(indexTitle(fileTitle) + " is not a sensor readings index");
+            }
+            if (in.readLong() != Files.size(dataFile)
+                    || in.readLong() != Files.getLastModifiedTime(dataFile).toMillis())
+            {
+                throw new IOException(indexTitle(fileTitle) + " is out of date");
+            }
+            int cyclesPerEntry = in.readInt();
+            int numberOfEntries = in.readInt();
+            long[] positions = new long[numberOfEntries];
+            long[] sequenceNumbers = new long[numberOfEntries];
+            char[] expectedTimeSlotIds = new char[numberOfEntries];
+            char[] timeSlotIds = new char[numberOfEntries];
+            int[] sensorData = new int[numberOfEntries * NUMBER_OF_SENSORS];
+            for (int entry = 0; entry < numberOfEntries; entry++)
+            {
+                positions[entry] = in.readLong();
+                sequenceNumbers[entry] = in.readLong();
+                expectedTimeSlotIds[entry] = in.readChar();
+                timeSlotIds[entry] = in.readChar();
+                for (int sensor = 0; sensor < NUMBER_OF_SENSORS; sensor++)
+                {
+                    sensorData[entry * NUMBER_OF_SENSORS + sensor] = in.readInt();
+                }
+            }
+            return new SensorReadingsIndex(cyclesPerEntry, numberOfEntries, positions,
+                    sequenceNumbers, expectedTimeSlotIds, timeSlotIds, sensorData);
+        }
+    }
+
+    /**
+     * Write this index next to the data file it indexes
+     *
+     * @param fileTitle the title of the data file (not of the index)
+     * @throws IOException if the index can't be written
+     */
+    public void write(String fileTitle) throws IOException
+    {
+        Path dataFile = Paths.get(fileTitle);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(indexTitle(fileTitle))))))
+        {
+            out.writeInt(INDEX_FILE_MAGIC);
+            out.writeInt(INDEX_FILE_VERSION);
+            out.writeLong(Files.size(dataFile));
+            out.writeLong(Files.getLastModifiedTime(dataFile).toMillis());
+            out.writeInt(cyclesPerEntry);
+            out.writeInt(numberOfEntries);
+            for (int entry = 0; entry < numberOfEntries; entry++)
+            {
+                out.writeLong(positions[entry]);
+                out.writeLong(sequenceNumbers[entry]);
+                out.writeChar(expectedTimeSlotIds[entry]);
+                out.writeChar(timeSlotIds[entry]);
+                for (int sensor = 0; sensor < NUMBER_OF_SENSORS; sensor++)
+                {
+                    out.writeInt(sensorData[entry * NUMBER_OF_SENSORS + sensor]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the entries of some cycles without parsing the rest of the file.  Nothing is logged,
+     * since the errors were already logged when the file was first parsed.
+     *
+     * @param fileTitle the title of the data file this index was built from
+     * @param firstCycle the first cycle to read
+     * @param lastCycle the last cycle to read
+     * @return the entries in those cycles, in the order they are in the file
+     * @throws IOException if the data file can't be read
+     */
+    public List<ReadingSet> readCycles(String fileTitle, long firstCycle, long lastCycle)
+            throws IOException
+    {
+        long firstSequenceNumber = firstCycle * SensorReadingsParser.READINGS_PER_GROUP;
+        long lastSequenceNumber = (lastCycle + 1) * SensorReadingsParser.READINGS_PER_GROUP - 1;
+        SensorReadingsParser parser =
+                new SensorReadingsParser(SensorDataSource.fromFile(fileTitle), null);
+        List<ReadingSet> readings = new ArrayList<>();
+        try
+        {
+            int entry = findEntryBefore(firstSequenceNumber);
+            if (entry >= 0)
+            {
+                parser.restoreState(getState(entry));
+            }
+            while (parser.advance() && parser.getSequenceNumber() <= lastSequenceNumber)
+            {
+                if (parser.getSequenceNumber() >= firstSequenceNumber)
+                {
+                    readings.add(parser.getReadingSet());
+                }
+            }
+        }
+        finally
+        {
+            parser.close();
+        }
+        return readings;
+    }
+
+    public int getNumberOfEntries()
+    {
+        return numberOfEntries;
+    }
+
+    public int getCyclesPerEntry()
+    {
+        return cyclesPerEntry;
+    }
+
+    /**
+     * @param fileTitle the title of a data file
+     * @return the title of the index file that goes with it
+     */
+    static String indexTitle(String fileTitle)
+    {
+        return fileTitle + ".idx";
+    }
+
+    /**
+     * Find the last entry saved before any entry with the given sequence number had been read
+     *
+     * @param sequenceNumber the sequence number being looked for
+     * @return the position of that entry, or -1 if the parse has to start from the beginning
+     */
+    private int findEntryBefore(long sequenceNumber)
+    {
+        int low = 0;
+        int high = numberOfEntries - 1;
+        int found = -1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            if (sequenceNumbers[middle] < sequenceNumber)
+            {
+                found = middle;
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    private SensorReadingsParser.ParserState getState(int entry)
+    {
+        SensorReadingsParser.ParserState state = new SensorReadingsParser.ParserState();
+        state.position = positions[entry];
+        state.sequenceNumber = sequenceNumbers[entry];
+        state.expectedTimeSlotId = expectedTimeSlotIds[entry];
+        state.timeSlotId = timeSlotIds[entry];
+        System.arraycopy(sensorData, entry * NUMBER_OF_SENSORS, state.sensorData, 0,
+                NUMBER_OF_SENSORS);
+        return state;
+    }
+
+    /**
+     * Builds an index while a file is being parsed.  Move through the entries with the builder
+     * instead of straight with the parser (the entry values are still read from the parser), then
+     * call build once the parser runs out of data.
+     */
+    public static class Builder
+    {
+        private static final int INITIAL_CAPACITY = 16;
+        private final SensorReadingsParser parser;
+        private final int cyclesPerEntry;
+        private final SensorReadingsParser.ParserState state =
+                new SensorReadingsParser.ParserState();
+        private long nextIndexedCycle;
+        private int numberOfEntries = 0;
+        private long[] positions = new long[INITIAL_CAPACITY];
+        private long[] sequenceNumbers = new long[INITIAL_CAPACITY];
+        private char[] expectedTimeSlotIds = new char[INITIAL_CAPACITY];
+        private char[] timeSlotIds = new char[INITIAL_CAPACITY];
+        private int[] sensorData = new int[INITIAL_CAPACITY * NUMBER_OF_SENSORS];
+
+        /**
+         * @param parser the parser to read from.  Nothing should have been read from it yet.
+         * @param cyclesPerEntry how many cycles apart the index entries should be
+         */
+        public Builder(SensorReadingsParser parser, int cyclesPerEntry)
+        {
+            if (cyclesPerEntry < 1)
+            {
+                throw new IllegalArgumentException("cyclesPerEntry must be at least 1");
+            }
+            this.parser = parser;
+            this.cyclesPerEntry = cyclesPerEntry;
+            nextIndexedCycle = cyclesPerEntry;
+        }
+
+        /**
+         * Move the parser on to its next valid entry, noting where it was if the entry starts a
+         * new stretch of the index
+         *
+         * @return true if there was another entry, false if the parser reached the end of its data
+         */
+        public boolean advance()
+        {
+            boolean saved = parser.saveState(state);
+            if (!parser.advance())
+            {
+                return false;
+            }
+            if (saved && parser.getCycle() >= nextIndexedCycle)
+            {
+                addEntry();
+                nextIndexedCycle = (parser.getCycle() / cyclesPerEntry + 1) * cyclesPerEntry;
+            }
+            return true;
+        }
+
+        /**
+         * Get the next valid entry from the parser, noting where it was if it starts a new
+         * stretch of the index
+         *
+         * @return the ReadingSet for the next valid entry
+         * @throws SensorReadingsParser.NoMoreData if the parser reached the end of its data
+         */
+        public ReadingSet getNext() throws SensorReadingsParser.NoMoreData
+        {
+            if (!advance())
+            {
+                throw new SensorReadingsParser.NoMoreData();
+            }
+            return parser.getReadingSet();
+        }
+
+        /**
+         * @return the index of everything read so far
+         */
+        public SensorReadingsIndex build()
+        {
+            return new SensorReadingsIndex(cyclesPerEntry, numberOfEntries,
+                    Arrays.copyOf(positions, numberOfEntries),
+                    Arrays.copyOf(sequenceNumbers, numberOfEntries),
+                    Arrays.copyOf(expectedTimeSlotIds, numberOfEntries),
+                    Arrays.copyOf(timeSlotIds, numberOfEntries),
+                    Arrays.copyOf(sensorData, numberOfEntries * NUMBER_OF_SENSORS));
+        }
+
+        private void addEntry()
+        {
+            if (numberOfEntries == positions.length)
+            {
+                int capacity = numberOfEntries * 2;
+                positions = Arrays.copyOf(positions, capacity);
+                sequenceNumbers = Arrays.copyOf(sequenceNumbers, capacity);
+                expectedTimeSlotIds = Arrays.copyOf(expectedTimeSlotIds, capacity);
+                timeSlotIds = Arrays.copyOf(timeSlotIds, capacity);
+                sensorData = Arrays.copyOf(sensorData, capacity * NUMBER_OF_SENSORS);
+            }
+            positions[numberOfEntries] = state.position;
+            sequenceNumbers[numberOfEntries] = state.sequenceNumber;
+            expectedTimeSlotIds[numberOfEntries] = state.expectedTimeSlotId;
+            timeSlotIds[numberOfEntries] = state.timeSlotId;
+            System.arraycopy(state.sensorData, 0, sensorData, numberOfEntries * NUMBER_OF_SENSORS,
+                    NUMBER_OF_SENSORS);
+            numberOfEntries++;
+        }
+    }
+}
@@ -1,24 +1,35 @@
-import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.FileHandler;
+import java.util.logging.Handler;
 import java.util.logging.Level;
-import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
 /**
  * This class parses a sensor log file.  In addition to returning the ReadingSets that it finds, it logs
- * any errors it saw in the file.  Those logs will be a file whose title and path match the file being
- * read with ".log" added at the end of the file title.
+ * any errors it saw in the file.  When the parser is created from a file title, those logs will be a
+ * file whose title and path match the file being read with ".log" added at the end of the file title.
+ * Data can also come from any other SensorDataSource, with the errors going to whatever Handler the
+ * caller supplies.
+ *
+ * Log files the parser creates itself are closed when the JVM exits if the parser never was, so
+ * they are still complete XML.
+ *
+ * After advance, the parser itself is a ReadingView of the entry it moved to.
  */
-public class SensorReadingsParser
+public class SensorReadingsParser implements ReadingView
 {
     protected static final int NUMBER_OF_SENSORS = 3;
     protected static final char FIRST_TIME_SLOT_ID = 'A';
     protected static final int READINGS_PER_GROUP = 15;
-    private static final Logger LOGGER =
-            Logger.getLogger(SensorReadingsParser.class.getName());
-    private final Scanner dataFile;
+    private static final Set<Handler> OPEN_LOG_FILES =
+            Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Logger logger = Logger.getAnonymousLogger();
+    private final Handler diagnostics;
+    private final boolean ownsDiagnostics;
+    private final SensorLineReader dataFile;
 
     private static final String DELIMITING_CHAR = " ";
     private static final char TIME_SLOT_ID_MIN = 'A';
@@ -35,6 +46,19 @@ public class SensorReadingsParser
     private char timeSlotId = FIRST_TIME_SLOT_ID;
     private boolean isMissingOnePreviousReading = false;
     private String lineInFile = "";
+    private long sequenceNumber = -1;
+
+    static
+    {
+        // a parser nobody closed still finishes its log file
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+        {
+            for (Handler logFile : OPEN_LOG_FILES)
+            {
+                logFile.close();
+            }
+        }));
+    }
 
     /**
      * Create an object that can read our sensor data files
@@ -44,31 +68,111 @@ public class SensorReadingsParser
      */
     public SensorReadingsParser(String fileTitle) throws IOException
     {
-        FileHandler fileHandler = new FileHandler(fileTitle + ".log");
-
-        //Assigning handlers to LOGGER object
-        LOGGER.addHandler(fileHandler);
+        this(SensorDataSource.fromFile(fileTitle),
+                ownLogFile(new FileHandler(fileTitle + ".log")));
+    }
 
-        fileHandler.setLevel(Level.INFO);
-        LOGGER.setLevel(Level.ALL);
+    /**
+     * Create an object that can read our sensor data files, for when there are lots of small
+     * files to get through.  The log file is only created once there is an error to put in it
+     * (see LazyFileHandler), so clean files cost no more than opening and reading them.  A log
+     * left from an earlier parse is still replaced, so the log always matches the latest parse.
+     *
+     * @param fileTitle the title of the file this object should read
+     * @return the parser
+     * @throws IOException if it can't find the file
+     */
+    public static SensorReadingsParser openLightweight(String fileTitle) throws IOException
+    {
+        return new SensorReadingsParser(SensorDataSource.fromFile(fileTitle),
+                ownLogFile(new LazyFileHandler(fileTitle + ".log")));
+    }
 
-        dataFile = new Scanner(new File(fileTitle));
+    /**
+     * Create an object that reads sensor data from any source
+     *
+     * @param source where the sensor data comes from
+     * @param diagnostics where the errors seen in the data should be logged.  May be null if the
+     *                    caller doesn't want them recorded anywhere.  Its level is left as the
+     *                    caller set it, and the parser stops using it but never closes it, so
+     *                    it can be shared with other parsers.
+     * @throws IOException if the source can't be opened
+     */
+    public SensorReadingsParser(SensorDataSource source, Handler diagnostics) throws IOException
+    {
+        this.diagnostics = diagnostics;
+        ownsDiagnostics = diagnostics != null && OPEN_LOG_FILES.contains(diagnostics);
+        if (diagnostics != null)
+        {
+            //Assigning handlers to logger object
+            logger.addHandler(diagnostics);
+        }
+        else
+        {
+            logger.setUseParentHandlers(false);
+        }
+        logger.setLevel(Level.ALL);
 
-        int lineCount = 0;
-        while (lineCount < NUMBER_OF_SENSORS)
+        SensorLineReader reader = null;
+        try
         {
-            lineInFile = dataFile.nextLine();
-            String[] sensorInput = lineInFile.split(DELIMITING_CHAR);
-            for (int index = 0; index < 2; index++)
+            reader = new SensorLineReader(source.open());
+            int lineCount = 0;
+            while (lineCount < NUMBER_OF_SENSORS)
             {
-                sensorReadingRange[lineCount][index] = Integer.parseInt(sensorInput[index]);
+                lineInFile = reader.nextLine();
+                readInSensorRange(lineCount, lineInFile);
+                lineCount++;
             }
-            lineCount++;
         }
+        catch (IOException | RuntimeException e)
+        {
+            closeDiagnostics();
+            if (reader != null)
+            {
+                reader.close();
+            }
+            throw e;
+        }
+        dataFile = reader;
 
         // At this point, your logger has been set up and your datafile is ready to read
     }
 
+    /**
+     * Get a handler the parser made for itself ready to use.  It logs everything from INFO up,
+     * and is closed when the JVM exits unless the parser closes it first.
+     */
+    private static Handler ownLogFile(Handler diagnostics)
+    {
+        diagnostics.setLevel(Level.INFO);
+        OPEN_LOG_FILES.add(diagnostics);
+        return diagnostics;
+    }
+
+
+    /**
+     * Reads the min and max of one sensor from the start of the file.  Only the first two values
+     * on the line are used.
+     * @param sensorIndex The index of the sensor the line describes.
+     * @param rangeLine The line holding the sensor's min and max.
+     */
+    private void readInSensorRange(int sensorIndex, String rangeLine)
+    {
+        int valueStart = 0;
+        for (int index = 0; index < 2; index++)
+        {
+            int valueEnd = rangeLine.indexOf(DELIMITING_CHAR, valueStart);
+            if (valueEnd < 0)
+            {
+                valueEnd = rangeLine.length();
+            }
+            sensorReadingRange[sensorIndex][index] =
+                    Integer.parseInt(rangeLine, valueStart, valueEnd, 10);
+            valueStart = valueEnd + 1;
+        }
+    }
+
     /**
      * Get the next valid entry from the file
      *
@@ -76,38 +180,131 @@ public class SensorReadingsParser
      * @throws NoMoreData Throws exception if reached end of file.
      */
     public ReadingSet getNext() throws NoMoreData
+    {
+        if (!advance())
+        {
+            throw new NoMoreData();
+        }
+        return getReadingSet();
+    }
+
+    /**
+     * Move on to the next valid entry from the file.  Its values can then be read with
+     * getTimeSlotID, getSequenceNumber, getCycle and getData without creating a ReadingSet.
+     *
+     * @return true if there was another entry, false if the end of the file was reached
+     */
+    public boolean advance()
+    {
+        if (!readNextRecord())
+        {
+            return false;
+        }
+        advanceSequenceNumber();
+        return true;
+    }
+
+    /**
+     * @return the time slot ID of the entry advance moved to
+     */
+    @Override
+    public char getTimeSlotID()
+    {
+        return timeSlotId;
+    }
+
+    /**
+     * @return the sequence number of the entry advance moved to
+     */
+    @Override
+    public long getSequenceNumber()
+    {
+        return sequenceNumber;
+    }
+
+    /**
+     * @param index the offset of the sensor in the data section of each record
+     * @return that sensor's value in the entry advance moved to
+     */
+    @Override
+    public int getData(int index)
+    {
+        return currentSensorData[index];
+    }
+
+    /**
+     * @return the entry advance moved to.  The parser keeps reusing its own array, so this is a
+     * copy the caller can hold on to.
+     */
+    public ReadingSet getReadingSet()
+    {
+        return new ReadingSet(sequenceNumber, timeSlotId, currentSensorData.clone());
+    }
+
+    /**
+     * Read lines until one gives a valid entry, leaving its time slot ID and data in timeSlotId
+     * and currentSensorData.  Lines that can't be used are logged and skipped.
+     *
+     * @return true if an entry was read, false if the end of the file was reached first
+     */
+    private boolean readNextRecord()
     {
         // check for eof if previous line was not skipped
-        checkForNextLine();
-        String[] rawSensorData = lineInFile.split(DELIMITING_CHAR);
-        timeSlotId = rawSensorData[TIME_SLOT_ID_POSITION].charAt(0);
-        if (isDataAmountValid(rawSensorData.length) && (!doesSensorReadingContainChar(rawSensorData))
-                && isTimeSlotIDValid(rawSensorData[TIME_SLOT_ID_POSITION]))
+        while (checkForNextLine())
         {
-            // read in data and check for out of range
-            readInSensorData(rawSensorData);
-            // check if data is matching
-            checkMatching(currentSensorData);
-            previousSensorData = currentSensorData;
+            String[] rawSensorData = lineInFile.split(DELIMITING_CHAR);
+            timeSlotId = rawSensorData[TIME_SLOT_ID_POSITION].charAt(0);
+            if (isDataAmountValid(rawSensorData.length)
+                    && (!doesSensorReadingContainChar(rawSensorData))
+                    && isTimeSlotIDValid(rawSensorData[TIME_SLOT_ID_POSITION]))
+            {
+                if (!hasMissedOneTimeSlotID())
+                {
+                    checkMissingMultipleTimeSlotID();
+                    // read in data and check for out of range
+                    readInSensorData(rawSensorData);
+                    // check if data is matching
+                    checkMatching(currentSensorData);
+                    previousSensorData = currentSensorData;
+                }
+                //determine the next expected Time Slot ID
+                expectedTimeSlotId = calcExpectedTimeSlotId(timeSlotId);
+                return true;
+            }
         }
-        //determine the next expected Time Slot ID
-        expectedTimeSlotId = calcExpectedTimeSlotId(timeSlotId);
-        // return reading set with data and time slot id
-        ReadingSet readingSet = new ReadingSet(timeSlotId, currentSensorData);
-        return readingSet;
+        return false;
     }
 
     /**
-     * Checks if there is another line to be read.
-     * @throws NoMoreData Throws exception if reached end of file.
+     * Moves the sequence number forward to the entry that was just read.  The sequence number
+     * counts time slots from the A of the first cycle, so it keeps going up when the time slot
+     * IDs wrap from O to A and jumps over any slots that were skipped.  A time slot ID that
+     * isn't after the previous one is taken to be in the next cycle.
      */
-    private void checkForNextLine() throws NoMoreData
+    private void advanceSequenceNumber()
+    {
+        int slot = Math.floorMod(timeSlotId - FIRST_TIME_SLOT_ID, READINGS_PER_GROUP);
+        if (sequenceNumber < 0)
+        {
+            sequenceNumber = slot;
+            return;
+        }
+        int previousSlot = (int) (sequenceNumber % READINGS_PER_GROUP);
+        sequenceNumber += Math.floorMod(slot - previousSlot - 1, READINGS_PER_GROUP) + 1;
+    }
+
+    /**
+     * Checks if there is another line to be read, and reads it unless the previous line
+     * still has to be used.
+     * @return True if there is a line in lineInFile to use, false if reached end of file.
+     */
+    private boolean checkForNextLine()
     {
         if (!isMissingOnePreviousReading)
         {
             if(!dataFile.hasNextLine())
             {
-                throw new NoMoreData();
+                return false;
             }
             lineInFile = dataFile.nextLine();
         }
@@ -115,6 +312,7 @@ public class SensorReadingsParser
         {
             isMissingOnePreviousReading = false;
         }
+        return true;
     }
     /**
      * Checks the bounds of the sensor readings and stores them for future use.
@@ -146,7 +344,7 @@ public class SensorReadingsParser
         if (currentSensorData[sensorIndex] < min)
         {
             currentSensorData[sensorIndex] = min;
-            LOGGER.info("Reading value is too low.  Setting to min value");
+            logger.info("Reading value is too low.  Setting to min value");
         }
     }
 
@@ -162,7 +360,7 @@ public class SensorReadingsParser
         if (max < currentSensorData[sensorIndex] && currentSensorData[sensorIndex] < maxWithTolerance)
         {
             currentSensorData[sensorIndex] = max;
-            LOGGER.info("Reading value is too high.  Setting to max value");
+            logger.info("Reading value is too high.  Setting to max value");
         }
     }
 
@@ -179,7 +377,7 @@ public class SensorReadingsParser
         if (currentSensorData[sensorIndex] >= maxWithTolerance && dataFile.hasNext())
         {
             currentSensorData[sensorIndex] = max;
-            LOGGER.severe("Reading value is at least 150% of max value.  Setting to max value");
+            logger.severe("Reading value is at least 150% of max value.  Setting to max value");
             return true;
         }
         return false;
@@ -208,11 +406,28 @@ public class SensorReadingsParser
     }
 
     /**
-     * Close this reader.  Will close the log file
+     * Close this reader.  Will close the log file it created and the data it was reading
      */
     protected void close()
     {
-        LogManager.getLogManager().reset();
+        closeDiagnostics();
+        dataFile.close();
+    }
+
+    /**
+     * Stop logging.  The log file is closed if the parser created it; a handler from the caller
+     * is only detached, since other parsers may still be using it.
+     */
+    private void closeDiagnostics()
+    {
+        if (diagnostics != null)
+        {
+            logger.removeHandler(diagnostics);
+            if (ownsDiagnostics && OPEN_LOG_FILES.remove(diagnostics))
+            {
+                diagnostics.close();
+            }
+        }
     }
 
     /**
@@ -220,9 +435,8 @@ public class SensorReadingsParser
      * If the data amount is invalid, it will be logged.
      * @param dataLength The length of the data set.
      * @return True if the data amount is valid, false if not.
-     * @throws NoMoreData Throws exception if there is no more data.
      */
-    private boolean isDataAmountValid(int dataLength) throws NoMoreData
+    private boolean isDataAmountValid(int dataLength)
     {
         if (dataLength < NUM_DATA_ENTRIES_EXPECTED)
         {
@@ -239,50 +453,38 @@ public class SensorReadingsParser
 
     /**
      * Sends message to logger that there is fewer data than expected.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private void logRecordMissingData() throws NoMoreData
+    private void logRecordMissingData()
     {
-        LOGGER.severe("Record is missing data");
-        close();
-        getNext();
+        logger.severe("Record is missing data");
+        closeDiagnostics();
     }
 
     /**
      * Sends message to logger that there is more data than expected.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private void logRecordTooMuchData() throws NoMoreData
+    private void logRecordTooMuchData()
     {
-        LOGGER.severe("Record has too much data");
-        close();
-        getNext();
+        logger.severe("Record has too much data");
+        closeDiagnostics();
     }
 
     /**
      * Checks if the current time slot ID of the entry is valid.
      * @param readTimeSlotID The most recently read time slot ID.
      * @return True if the time slot ID is valid, false if not.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private boolean isTimeSlotIDValid(String readTimeSlotID) throws NoMoreData
+    private boolean isTimeSlotIDValid(String readTimeSlotID)
     {
         int timeSlotIDLength = readTimeSlotID.length();
-        if (!isTimeSlotIDInRange() || !isTimeSlotIDValidLength(timeSlotIDLength)
-                || hasMissedOneTimeSlotID())
-        {
-            return false;
-        }
-        checkMissingMultipleTimeSlotID();
-        return true;
+        return isTimeSlotIDInRange() && isTimeSlotIDValidLength(timeSlotIDLength);
     }
 
     /**
      * Checks if the current time slot ID is in the valid range.
      * @return True if the time slot ID is in the valid range, false if not.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private boolean isTimeSlotIDInRange() throws NoMoreData
+    private boolean isTimeSlotIDInRange()
     {
         if (TIME_SLOT_ID_MIN <= timeSlotId && timeSlotId <= TIME_SLOT_ID_MAX)
         {
@@ -295,21 +497,18 @@ public class SensorReadingsParser
     /**
      * Sends a message to the logger if the current time slot ID is out of
      * the valid range.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private void logTimeSlotIDOutOfRange() throws NoMoreData
+    private void logTimeSlotIDOutOfRange()
     {
-        LOGGER.severe("Time Slot ID is out of range, replaced with expected ID");
-        getNext();
+        logger.severe("Time Slot ID is out of range, replaced with expected ID");
     }
 
     /**
      * Checks if the length of a time slot ID is valid
      * @param timeSlotIDLength The length of the time slot ID
      * @return True if the time slot ID length is valid, false if not.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private boolean isTimeSlotIDValidLength(int timeSlotIDLength) throws NoMoreData
+    private boolean isTimeSlotIDValidLength(int timeSlotIDLength)
     {
         if (timeSlotIDLength == TIME_SLOT_ID_LENGTH_EXPECTED)
         {
@@ -321,12 +520,10 @@ public class SensorReadingsParser
 
     /**
      * Sends a message to the logger that the time slot ID length is invalid.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private void logTimeSlotIDInvalidLength() throws NoMoreData
+    private void logTimeSlotIDInvalidLength()
     {
-        LOGGER.severe("Time Slot ID is too long");
-        getNext();
+        logger.severe("Time Slot ID is too long");
     }
 
     /**
@@ -360,7 +557,7 @@ public class SensorReadingsParser
             timeSlotId = expectedTimeSlotId;
             //Use last valid sensor reading data
             currentSensorData = previousSensorData;
-            LOGGER.info("Missing reading. Returning all values of the "
+            logger.info("Missing reading. Returning all values of the "
                     + "last reading with expected ID.");
             return true;
         }
@@ -375,7 +572,7 @@ public class SensorReadingsParser
         int distanceOff = calcNumOfPositionsOff(timeSlotId, expectedTimeSlotId);
         if (distanceOff > 1)
         {
-            LOGGER.severe("Time Slot ID is off by more than 1 position. "
+            logger.severe("Time Slot ID is off by more than 1 position. "
                     + "Going forward as if entry is correct.");
         }
     }
@@ -400,9 +597,8 @@ public class SensorReadingsParser
      * @param lineOfData The most recently read line of data.
      * @return True if none of the sensor readings contain a character,
      * false if any sensor readings contain a character.
-     * @throws NoMoreData Throws exception if reached end of file.
      */
-    private boolean doesSensorReadingContainChar(String[] lineOfData) throws NoMoreData
+    private boolean doesSensorReadingContainChar(String[] lineOfData)
     {
         for (int sensorIndex = 0; sensorIndex < NUMBER_OF_SENSORS; sensorIndex++)
         {
@@ -413,8 +609,7 @@ public class SensorReadingsParser
             {
                 if (Character.isLetter(currentSensorReading.charAt(readingValueIndex)))
                 {
-                    LOGGER.severe("Sensor reading is not a number");
-                    getNext();
+                    logger.severe("Sensor reading is not a number");
                     return true;
                 }
             }
@@ -436,17 +631,76 @@ public class SensorReadingsParser
                 if (sensorReadings[currentIndex] == sensorReadings[checkingIndex])
                 {
                     String logMessage = "Sensor " + ++currentIndex + " and " + ++checkingIndex + " are matching";
-                    LOGGER.info(logMessage);
+                    logger.info(logMessage);
                 }
             }
         }
     }
 
+    /**
+     * Copy everything the parser needs to carry on from where it is now, so that a later parser
+     * over the same data can pick up from here with restoreState
+     *
+     * @param state where to copy the parser's state
+     * @return false if the parser is holding on to a line it has already read and can't be
+     * saved until the next entry has been read
+     */
+    boolean saveState(ParserState state)
+    {
+        if (isMissingOnePreviousReading)
+        {
+            return false;
+        }
+        state.position = dataFile.getPosition();
+        state.sequenceNumber = sequenceNumber;
+        state.expectedTimeSlotId = expectedTimeSlotId;
+        state.timeSlotId = timeSlotId;
+        System.arraycopy(currentSensorData, 0, state.sensorData, 0, NUMBER_OF_SENSORS);
+        return true;
+    }
+
+    /**
+     * Carry on from a state saved by a parser over the same data.  Entries read afterwards are
+     * the same ones the saved parser went on to return.
+     *
+     * @param state the saved state
+     * @throws IOException if the source can't seek to where the state was saved
+     */
+    void restoreState(ParserState state) throws IOException
+    {
+        dataFile.seek(state.position);
+        sequenceNumber = state.sequenceNumber;
+        expectedTimeSlotId = state.expectedTimeSlotId;
+        timeSlotId = state.timeSlotId;
+        currentSensorData = state.sensorData.clone();
+        previousSensorData = currentSensorData;
+        isMissingOnePreviousReading = false;
+    }
+
+    /**
+     * Where a parser is in its data, as saved by saveState
+     */
+    static class ParserState
+    {
+        long position;
+        long sequenceNumber;
+        char expectedTimeSlotId;
+        char timeSlotId;
+        final int[] sensorData = new int[NUMBER_OF_SENSORS];
+    }
+
     /**
      * Exception for when a file is trying to be read but there is
      * no more data left to read.
      */
     static class NoMoreData extends Exception
     {
+        /**
+         * Reaching the end of a file is expected, so this doesn't bother recording a stack trace
+         */
+        NoMoreData()
+        {
+            super(null, null, false, false);
+        }
     }
 }
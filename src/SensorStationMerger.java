@@ -0,0 +1,116 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Joins the readings of several stations by time slot.  Each station is read through its own
+ * SensorReadingsParser and only one reading per station is held at a time, so the merge needs
+ * the same memory no matter how long the files are.
+ *
+ * Rows come out in time order.  A station that skipped some time slots (or ran out of data)
+ * gets a null in the rows for the slots it doesn't have, and the other stations keep going.
+ * If a station's parser throws, the exception is passed on and that station is treated as out
+ * of data from then on.
+ */
+public class SensorStationMerger
+{
+    private static final long NO_MORE_READINGS = Long.MAX_VALUE;
+    private final SensorReadingsParser[] stations;
+    private final ReadingSet[] nextReadings;
+    private final long[] nextPositions;
+    private final boolean[] needsAdvance;
+
+    /**
+     * Create a merger over some stations.  Nothing is read until the first call to getNext.
+     *
+     * @param stations the parsers for each station.  A station's position in this list is its
+     *                 position in every MergedReadingSet.
+     */
+    public SensorStationMerger(List<SensorReadingsParser> stations)
+    {
+        this.stations = stations.toArray(new SensorReadingsParser[0]);
+        nextReadings = new ReadingSet[this.stations.length];
+        nextPositions = new long[this.stations.length];
+        needsAdvance = new boolean[this.stations.length];
+        Arrays.fill(needsAdvance, true);
+    }
+
+    /**
+     * Get the next time slot that at least one station has a reading for
+     *
+     * @return the readings every station had for that slot
+     * @throws SensorReadingsParser.NoMoreData if every station is out of data
+     */
+    public MergedReadingSet getNext() throws SensorReadingsParser.NoMoreData
+    {
+        // stations are only moved on once their reading has been handed out, so a station whose
+        // parser fails doesn't lose the readings before the failure
+        for (int station = 0; station < stations.length; station++)
+        {
+            if (needsAdvance[station])
+            {
+                advance(station);
+                needsAdvance[station] = false;
+            }
+        }
+
+        long position = NO_MORE_READINGS;
+        for (long nextPosition : nextPositions)
+        {
+            position = Math.min(position, nextPosition);
+        }
+        if (position == NO_MORE_READINGS)
+        {
+            throw new SensorReadingsParser.NoMoreData();
+        }
+
+        ReadingSet[] readings = new ReadingSet[stations.length];
+        for (int station = 0; station < stations.length; station++)
+        {
+            if (nextPositions[station] == position)
+            {
+                readings[station] = nextReadings[station];
+                needsAdvance[station] = true;
+            }
+        }
+        return new MergedReadingSet(position / SensorReadingsParser.READINGS_PER_GROUP,
+                (char) (SensorReadingsParser.FIRST_TIME_SLOT_ID
+                        + position % SensorReadingsParser.READINGS_PER_GROUP),
+                readings);
+    }
+
+    /**
+     * Read the next reading of a station.  Its sequence number is where it falls in time.
+     *
+     * @param station the position of the station
+     */
+    private void advance(int station)
+    {
+        boolean hasReading;
+        try
+        {
+            hasReading = stations[station].advance();
+        }
+        catch (RuntimeException e)
+        {
+            // don't hand out the reading before the failure a second time
+            markOutOfData(station);
+            needsAdvance[station] = false;
+            throw e;
+        }
+        if (hasReading)
+        {
+            nextReadings[station] = stations[station].getReadingSet();
+            nextPositions[station] = stations[station].getSequenceNumber();
+        }
+        else
+        {
+            markOutOfData(station);
+        }
+    }
+
+    private void markOutOfData(int station)
+    {
+        nextReadings[station] = null;
+        nextPositions[station] = NO_MORE_READINGS;
+    }
+}
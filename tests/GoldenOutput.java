@@ -0,0 +1,152 @@
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Everything the parser made of one sensor data file, in the form kept in the golden files in
+ * TestFiles/golden: one line per entry as ReadingSet.toString() gives it (or "threw" and the
+ * exception if the parse stopped), then a LOG_SEPARATOR line, then one "LEVEL: message" line per
+ * log record.
+ *
+ * Running main writes golden files.  The ones in TestFiles/golden were written by running it
+ * against the original parser, before any of the parser was rewritten.  That parser has no
+ * sequence numbers, so record works them out from the time slot IDs the same way
+ * SensorReadingsParser does, and only uses the constructor, getNext and close so it still
+ * compiles against that parser.
+ */
+public class GoldenOutput
+{
+    /**
+     * The line between the entries and the log records
+     */
+    public static final String LOG_SEPARATOR = "--- log";
+    private static final String GOLDEN_SUFFIX = ".expected";
+
+    private GoldenOutput()
+    {
+    }
+
+    /**
+     * Write the golden file for each sensor data file
+     *
+     * @param args the directory to write the golden files to, then the sensor data files
+     * @throws Exception if a file can't be read or written
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Path directory = Paths.get(args[0]);
+        for (String fileTitle : Arrays.copyOfRange(args, 1, args.length))
+        {
+            Path golden = goldenFile(directory, Paths.get(fileTitle));
+            Files.write(golden, record(fileTitle), StandardCharsets.UTF_8);
+            System.out.println("wrote " + golden);
+        }
+    }
+
+    /**
+     * @param directory the directory holding the golden files
+     * @param file a sensor data file
+     * @return where the golden file for that sensor data file goes
+     */
+    public static Path goldenFile(Path directory, Path file)
+    {
+        return directory.resolve(file.getFileName() + GOLDEN_SUFFIX);
+    }
+
+    /**
+     * Parse a file with the file title constructor, which leaves its log next to it
+     *
+     * @param fileTitle the title of the file to parse
+     * @return the lines of its golden file
+     * @throws Exception if the file can't be read or its log isn't XML
+     */
+    public static List<String> record(String fileTitle) throws Exception
+    {
+        List<String> lines = new ArrayList<>();
+        SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+        long sequenceNumber = -1;
+        try
+        {
+            while (true)
+            {
+                ReadingSet reading = parser.getNext();
+                int slot = Math.floorMod(reading.getTimeSlotID()
+                        - SensorReadingsParser.FIRST_TIME_SLOT_ID,
+                        SensorReadingsParser.READINGS_PER_GROUP);
+                if (sequenceNumber < 0)
+                {
+                    sequenceNumber = slot;
+                }
+                else
+                {
+                    int previousSlot =
+                            (int) (sequenceNumber % SensorReadingsParser.READINGS_PER_GROUP);
+                    sequenceNumber += Math.floorMod(slot - previousSlot - 1,
+                            SensorReadingsParser.READINGS_PER_GROUP) + 1;
+                }
+                int[] data = new int[SensorReadingsParser.NUMBER_OF_SENSORS];
+                for (int sensor = 0; sensor < data.length; sensor++)
+                {
+                    data[sensor] = reading.getData(sensor);
+                }
+                lines.add("ReadingSet{sequenceNumber=" + sequenceNumber + ", timeSlotID='"
+                        + reading.getTimeSlotID() + "', data=" + Arrays.toString(data) + "}");
+            }
+        }
+        catch (SensorReadingsParser.NoMoreData e)
+        {
+            // read the whole file
+        }
+        catch (RuntimeException e)
+        {
+            lines.add("threw " + e.getClass().getName());
+        }
+        parser.close();
+
+        lines.add(LOG_SEPARATOR);
+        lines.addAll(readLog(fileTitle + ".log"));
+        return lines;
+    }
+
+    /**
+     * @param logFileTitle a log written by the parser
+     * @return a "LEVEL: message" line for each of its records, or nothing if there is no log
+     * @throws Exception if the log isn't XML
+     */
+    public static List<String> readLog(String logFileTitle) throws Exception
+    {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(Paths.get(logFileTitle)))
+        {
+            return records;
+        }
+        // the logs refer to logger.dtd, which isn't needed to read them
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd",
+                false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document document = builder.parse(Paths.get(logFileTitle).toFile());
+        NodeList recordElements = document.getElementsByTagName("record");
+        for (int index = 0; index < recordElements.getLength(); index++)
+        {
+            Element record = (Element) recordElements.item(index);
+            records.add(textOf(record, "level") + ": " + textOf(record, "message"));
+        }
+        return records;
+    }
+
+    private static String textOf(Element record, String name)
+    {
+        return record.getElementsByTagName(name).item(0).getTextContent();
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+
+/**
+ * The different ways this project can get the entries out of a sensor data file.  REFERENCE is
+ * the plain constructor and getNext; every other engine should give exactly the same entries and
+ * leave exactly the same log records behind.  REFERENCE itself is checked against what the
+ * original parser did by TestParserGoldenOutput.
+ *
+ * Each engine returns the entries as ReadingSet.toString() gives them.  If the parse stops with
+ * an exception, the last element names the exception instead, since an engine has to fail in
+ * the same place as the reference too.
+ */
+public enum ParserEngine
+{
+    REFERENCE
+    {
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+            List<String> entries = new ArrayList<>();
+            try
+            {
+                while (true)
+                {
+                    entries.add(parser.getNext().toString());
+                }
+            }
+            catch (SensorReadingsParser.NoMoreData e)
+            {
+                // read the whole file
+            }
+            catch (RuntimeException e)
+            {
+                entries.add(threw(e));
+            }
+            parser.close();
+            return entries;
+        }
+    },
+    LIGHTWEIGHT_CURSOR
+    {
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            return readAll(SensorReadingsParser.openLightweight(fileTitle));
+        }
+    },
+    IN_MEMORY
+    {
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(Paths.get(fileTitle)));
+            FileHandler diagnostics = new FileHandler(fileTitle + ".log");
+            diagnostics.setLevel(Level.INFO);
+            try
+            {
+                return readAll(new SensorReadingsParser(SensorDataSource.fromBuffer(data),
+                        diagnostics));
+            }
+            finally
+            {
+                // the parser doesn't close a handler it was given
+                diagnostics.close();
+            }
+        }
+    },
+    MERGED
+    {
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+            SensorStationMerger merger =
+                    new SensorStationMerger(Collections.singletonList(parser));
+            List<String> entries = new ArrayList<>();
+            try
+            {
+                while (true)
+                {
+                    entries.add(merger.getNext().getReading(0).toString());
+                }
+            }
+            catch (SensorReadingsParser.NoMoreData e)
+            {
+                // read the whole file
+            }
+            catch (RuntimeException e)
+            {
+                entries.add(threw(e));
+            }
+            parser.close();
+            return entries;
+        }
+    },
+    INDEXED
+    {
+        private static final int CYCLES_PER_ENTRY = 2;
+        private static final int CYCLES_PER_QUERY = 3;
+
+        /**
+         * Builds the index during the parse, then reads the file back a few cycles at a time
+         * through the index
+         */
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+            SensorReadingsIndex.Builder builder =
+                    new SensorReadingsIndex.Builder(parser, CYCLES_PER_ENTRY);
+            List<String> entries = new ArrayList<>();
+            long lastCycle = -1;
+            try
+            {
+                while (builder.advance())
+                {
+                    entries.add(parser.getReadingSet().toString());
+                    lastCycle = parser.getCycle();
+                }
+            }
+            catch (RuntimeException e)
+            {
+                entries.add(threw(e));
+                return entries;
+            }
+            finally
+            {
+                parser.close();
+            }
+            builder.build().write(fileTitle);
+
+            SensorReadingsIndex index = SensorReadingsIndex.load(fileTitle);
+            entries.clear();
+            for (long cycle = 0; cycle <= lastCycle; cycle += CYCLES_PER_QUERY)
+            {
+                for (ReadingSet reading :
+                        index.readCycles(fileTitle, cycle, cycle + CYCLES_PER_QUERY - 1))
+                {
+                    entries.add(reading.toString());
+                }
+            }
+            return entries;
+        }
+    },
+    CACHED
+    {
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            SensorReadingsCache cache = new SensorReadingsCache(Long.MAX_VALUE, true);
+            List<String> entries = new ArrayList<>();
+            try
+            {
+                cache.get(fileTitle);
+                CachedReadings readings = cache.get(fileTitle);
+                for (int index = 0; index < readings.size(); index++)
+                {
+                    entries.add(readings.get(index).toString());
+                }
+            }
+            catch (RuntimeException e)
+            {
+                entries.add(threw(e));
+            }
+            return entries;
+        }
+
+        @Override
+        boolean keepsEntriesOfFailedParse()
+        {
+            return false;
+        }
+    },
+    OFF_HEAP_STORE
+    {
+        private static final int ROWS_PER_CHUNK = 7;
+
+        /**
+         * Appends the file into a store with small chunks, so most files cross a few chunk
+         * boundaries, then reads it back through a cursor
+         */
+        @Override
+        List<String> parse(String fileTitle) throws IOException
+        {
+            OffHeapReadingStore store =
+                    new OffHeapReadingStore(SensorReadingsParser.NUMBER_OF_SENSORS, ROWS_PER_CHUNK);
+            SensorReadingsParser parser = new SensorReadingsParser(fileTitle);
+            String failure = null;
+            try
+            {
+                store.appendAll(parser);
+            }
+            catch (RuntimeException e)
+            {
+                failure = threw(e);
+            }
+            parser.close();
+
+            List<String> entries = new ArrayList<>();
+            OffHeapReadingStore.Cursor cursor = store.cursor();
+            while (cursor.advance())
+            {
+                entries.add(cursor.toReadingSet().toString());
+            }
+            if (failure != null)
+            {
+                entries.add(failure);
+            }
+            return entries;
+        }
+    };
+
+    /**
+     * Parse a sensor data file, leaving its log (if the engine writes one) at the file's title
+     * with ".log" added
+     *
+     * @param fileTitle the title of the file to parse
+     * @return the entries of the file
+     * @throws IOException if the file can't be read
+     */
+    abstract List<String> parse(String fileTitle) throws IOException;
+
+    /**
+     * @return false if an exception part way through a file loses the entries before it, so only
+     * the exception can be compared
+     */
+    boolean keepsEntriesOfFailedParse()
+    {
+        return true;
+    }
+
+    private static List<String> readAll(SensorReadingsParser parser)
+    {
+        List<String> entries = new ArrayList<>();
+        try
+        {
+            while (parser.advance())
+            {
+                entries.add(parser.getReadingSet().toString());
+            }
+        }
+        catch (RuntimeException e)
+        {
+            entries.add(threw(e));
+        }
+        parser.close();
+        return entries;
+    }
+
+    private static String threw(RuntimeException e)
+    {
+        return "threw " + e.getClass().getName();
+    }
+}
@@ -14,4 +14,14 @@ public class ReadingSetTests
         assertEquals(5, rs.getData(1));
         assertEquals(6, rs.getData(2));
     }
+
+    @Test
+    public void testSequenceNumber()
+    {
+        ReadingSet rs = new ReadingSet(47, 'C', new int[]{4, 5, 6});
+        assertEquals(47, rs.getSequenceNumber());
+        assertEquals(3, rs.getCycle());
+        assertEquals('C', rs.getTimeSlotID());
+        assertEquals(2, new ReadingSet('C', new int[]{4, 5, 6}).getSequenceNumber());
+    }
 }
@@ -0,0 +1,208 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes random sensor data files with a chosen mix of problems in them, for comparing parsers
+ * against each other and timing them.  The same seed always gives the same file.
+ *
+ * The ranges are the ones used by most of the files in TestFiles (0-23, 1-42 and 34-56).  Every
+ * problem is one the parser logs and recovers from, except that a reading of 150% or more takes
+ * its other values from the next line, and a letter on that line stops the parse.
+ */
+public class SensorFileGenerator
+{
+    private static final String RANGES = "0 23\n1 42\n34 56\n";
+    private static final int[] MIN = {0, 1, 34};
+    private static final int[] MAX = {23, 42, 56};
+
+    /**
+     * Out of every 1000 lines, how many of each kind of problem to put in
+     */
+    public static class AnomalyMix
+    {
+        int missedOneSlot;
+        int missedManySlots;
+        int missingColumn;
+        int extraColumn;
+        int timeSlotOutOfRange;
+        int timeSlotTooLong;
+        int letterInReading;
+        int readingTooLow;
+        int readingTooHigh;
+        int readingFarTooHigh;
+        int matchingReadings;
+
+        /**
+         * @return a mix that only has problems the parser keeps logging after, so the whole log
+         * can be compared (missing and extra columns stop the log)
+         */
+        public static AnomalyMix loggedThroughout()
+        {
+            AnomalyMix mix = new AnomalyMix();
+            mix.missedOneSlot = 20;
+            mix.missedManySlots = 10;
+            mix.timeSlotOutOfRange = 10;
+            mix.timeSlotTooLong = 10;
+            mix.letterInReading = 10;
+            mix.readingTooLow = 30;
+            mix.readingTooHigh = 30;
+            mix.readingFarTooHigh = 10;
+            mix.matchingReadings = 30;
+            return mix;
+        }
+
+        /**
+         * @return a mix with every kind of problem
+         */
+        public static AnomalyMix everything()
+        {
+            AnomalyMix mix = loggedThroughout();
+            mix.missingColumn = 5;
+            mix.extraColumn = 5;
+            return mix;
+        }
+
+        /**
+         * @return a mix with a few of each problem that never stops a parse part way, for timing
+         */
+        public static AnomalyMix occasional()
+        {
+            AnomalyMix mix = new AnomalyMix();
+            mix.missedOneSlot = 2;
+            mix.missedManySlots = 1;
+            mix.timeSlotOutOfRange = 1;
+            mix.timeSlotTooLong = 1;
+            mix.readingTooLow = 2;
+            mix.readingTooHigh = 2;
+            mix.readingFarTooHigh = 1;
+            mix.matchingReadings = 2;
+            return mix;
+        }
+
+        /**
+         * @return a mix with no problems at all
+         */
+        public static AnomalyMix clean()
+        {
+            return new AnomalyMix();
+        }
+    }
+
+    private final Random random;
+    private final AnomalyMix mix;
+    private int slot = 0;
+
+    /**
+     * @param seed the seed for the random numbers
+     * @param mix how often each problem should show up
+     */
+    public SensorFileGenerator(long seed, AnomalyMix mix)
+    {
+        random = new Random(seed);
+        this.mix = mix;
+    }
+
+    /**
+     * Write a file
+     *
+     * @param file where to write it
+     * @param numberOfLines how many record lines to write after the ranges
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file, int numberOfLines) throws IOException
+    {
+        StringBuilder contents = new StringBuilder(RANGES);
+        for (int line = 0; line < numberOfLines; line++)
+        {
+            appendLine(contents);
+        }
+        Files.write(file, contents.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void appendLine(StringBuilder contents)
+    {
+        int[] readings = new int[SensorReadingsParser.NUMBER_OF_SENSORS];
+        for (int sensor = 0; sensor < readings.length; sensor++)
+        {
+            readings[sensor] = MIN[sensor] + random.nextInt(MAX[sensor] - MIN[sensor] + 1);
+        }
+        int sensor = random.nextInt(readings.length);
+        int roll = random.nextInt(1000);
+
+        if ((roll -= mix.missedOneSlot) < 0)
+        {
+            slot = (slot + 1) % SensorReadingsParser.READINGS_PER_GROUP;
+        }
+        else if ((roll -= mix.missedManySlots) < 0)
+        {
+            slot = (slot + 2 + random.nextInt(10)) % SensorReadingsParser.READINGS_PER_GROUP;
+        }
+        else if ((roll -= mix.missingColumn) < 0)
+        {
+            contents.append(timeSlotId()).append(' ').append(readings[0]).append(' ')
+                    .append(readings[1]).append('\n');
+            return;
+        }
+        else if ((roll -= mix.extraColumn) < 0)
+        {
+            contents.append(timeSlotId()).append(' ').append(readings[0]).append(' ')
+                    .append(readings[1]).append(' ').append(readings[2]).append(' ')
+                    .append(readings[0]).append('\n');
+            return;
+        }
+        else if ((roll -= mix.timeSlotOutOfRange) < 0)
+        {
+            contents.append((char) ('P' + random.nextInt(10))).append(' ').append(readings[0])
+                    .append(' ').append(readings[1]).append(' ').append(readings[2]).append('\n');
+            return;
+        }
+        else if ((roll -= mix.timeSlotTooLong) < 0)
+        {
+            contents.append(timeSlotId()).append(timeSlotId()).append(' ').append(readings[0])
+                    .append(' ').append(readings[1]).append(' ').append(readings[2]).append('\n');
+            return;
+        }
+        else if ((roll -= mix.letterInReading) < 0)
+        {
+            contents.append(timeSlotId());
+            for (int index = 0; index < readings.length; index++)
+            {
+                contents.append(' ').append(readings[index]);
+                if (index == sensor)
+                {
+                    contents.append((char) ('a' + random.nextInt(26)));
+                }
+            }
+            contents.append('\n');
+            return;
+        }
+        else if ((roll -= mix.readingTooLow) < 0)
+        {
+            readings[sensor] = MIN[sensor] - 1 - random.nextInt(5);
+        }
+        else if ((roll -= mix.readingTooHigh) < 0)
+        {
+            readings[sensor] = MAX[sensor] + 1 + random.nextInt(MAX[sensor] / 2 - 1);
+        }
+        else if ((roll -= mix.readingFarTooHigh) < 0)
+        {
+            readings[sensor] = (MAX[sensor] * 3 + 1) / 2 + random.nextInt(100);
+        }
+        else if ((roll -= mix.matchingReadings) < 0)
+        {
+            readings[sensor] = readings[(sensor + 1) % readings.length];
+        }
+
+        contents.append(timeSlotId()).append(' ').append(readings[0]).append(' ')
+                .append(readings[1]).append(' ').append(readings[2]).append('\n');
+        slot = (slot + 1) % SensorReadingsParser.READINGS_PER_GROUP;
+    }
+
+    private char timeSlotId()
+    {
+        return (char) (SensorReadingsParser.FIRST_TIME_SLOT_ID + slot);
+    }
+}
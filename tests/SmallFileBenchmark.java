@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Times parsing many tiny station files, the way a fleet's worth of short files comes in.
+ * Each file is parsed from memory with no diagnostics so only the parser itself is measured,
+ * once ending on the NoMoreData exception from getNext and once ending on advance returning false.
+ *
+ * Run with: java SmallFileBenchmark [number of files]
+ */
+public class SmallFileBenchmark
+{
+    private static final int DEFAULT_NUMBER_OF_FILES = 20000;
+    private static final int ROUNDS = 5;
+    private static final ByteBuffer SMALL_FILE = ByteBuffer.wrap(
+            "0 23\n1 42\n34 56\nA 1 2 35\nB 2 3 36\nD 3 4 37\n".getBytes(StandardCharsets.UTF_8));
+
+    public static void main(String[] args) throws IOException
+    {
+        int numberOfFiles = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUMBER_OF_FILES;
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            long getNextTime = timeGetNext(numberOfFiles);
+            long advanceTime = timeAdvance(numberOfFiles);
+            System.out.printf("round %d: getNext %,d ns/file, advance %,d ns/file%n", round,
+                    getNextTime / numberOfFiles, advanceTime / numberOfFiles);
+        }
+    }
+
+    private static long timeGetNext(int numberOfFiles) throws IOException
+    {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int file = 0; file < numberOfFiles; file++)
+        {
+            SensorReadingsParser parser =
+                    new SensorReadingsParser(SensorDataSource.fromBuffer(SMALL_FILE), null);
+            try
+            {
+                while (true)
+                {
+                    checksum += parser.getNext().getData(0);
+                }
+            }
+            catch (SensorReadingsParser.NoMoreData e)
+            {
+                parser.close();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        check(checksum, numberOfFiles);
+        return elapsed;
+    }
+
+    private static long timeAdvance(int numberOfFiles) throws IOException
+    {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int file = 0; file < numberOfFiles; file++)
+        {
+            SensorReadingsParser parser =
+                    new SensorReadingsParser(SensorDataSource.fromBuffer(SMALL_FILE), null);
+            while (parser.advance())
+            {
+                checksum += parser.getData(0);
+            }
+            parser.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        check(checksum, numberOfFiles);
+        return elapsed;
+    }
+
+    /**
+     * Makes sure the work wasn't optimized away and the file parsed as expected
+     * (A, B, the repeated B filling in for C, then D)
+     */
+    private static void check(long checksum, int numberOfFiles)
+    {
+        if (checksum != 8L * numberOfFiles)
+        {
+            throw new IllegalStateException("Unexpected checksum " + checksum);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestLogAnalyzer
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final String TOO_HIGH =
+            "Reading value is at least 150% of max value.  Setting to max value";
+
+    /**
+     * Parse a test file from a scratch directory so its log ends up there too
+     */
+    private static void parseInto(Path directory, String fileTitle) throws IOException
+    {
+        Path copy = directory.resolve(Paths.get(fileTitle).getFileName());
+        Files.copy(Paths.get(fileTitle), copy);
+        SensorReadingsParser p = new SensorReadingsParser(copy.toString());
+        while (p.advance())
+        {
+            // only the log is wanted
+        }
+        p.close();
+    }
+
+    @Test
+    public void summaryMatchesBasicLogParser() throws Exception
+    {
+        Path directory = temporaryFolder.newFolder().toPath();
+        Files.copy(Paths.get("TestFiles/logger.dtd"), directory.resolve("logger.dtd"));
+        parseInto(directory, "TestFiles/BadRecordInvalidSensorID.txt");
+        String logFileTitle = directory.resolve("BadRecordInvalidSensorID.txt.log").toString();
+
+        LogSummary summary = BasicLogParser.summarize(logFileTitle);
+        BasicLogParser lp = new BasicLogParser(logFileTitle);
+        assertEquals(lp.getNumberOfRecords(), summary.getNumberOfRecords());
+        assertEquals(2, summary.getCount("SEVERE"));
+        assertEquals(0, summary.getCount("INFO"));
+        assertEquals(1, summary.getCount("SEVERE",
+                "Time Slot ID is out of range, replaced with expected ID"));
+        assertEquals(1, summary.getCount("SEVERE", "Time Slot ID is too long"));
+        assertTrue(summary.isComplete());
+    }
+
+    @Test
+    public void findsStationsWithMostEvents() throws IOException
+    {
+        Path directory = temporaryFolder.newFolder().toPath();
+        parseInto(directory, "TestFiles/OutOfRangeVeryHigh.txt");
+        parseInto(directory, "TestFiles/OutOfRangeHigh.txt");
+        parseInto(directory, "TestFiles/MissingRecord.txt");
+        parseInto(directory, "TestFiles/TimeSlotIDWrap.txt");
+
+        List<LogSummary> summaries = LogAnalyzer.analyzeDirectory(directory.toString(), 2);
+        assertEquals(4, summaries.size());
+        assertTrue(summaries.get(0).getLogFileTitle().endsWith("MissingRecord.txt.log"));
+        assertEquals(1, summaries.get(0).getCount("INFO"));
+        assertEquals(0, summaries.get(3).getNumberOfRecords());
+
+        List<LogSummary> worst = LogAnalyzer.mostFrequent(summaries, "SEVERE", TOO_HIGH, 5);
+        assertEquals(1, worst.size());
+        assertTrue(worst.get(0).getLogFileTitle().endsWith("OutOfRangeVeryHigh.txt.log"));
+        assertEquals(3, worst.get(0).getCount("SEVERE", TOO_HIGH));
+    }
+
+    @Test
+    public void countsWhatItCanOfUnfinishedLog() throws IOException
+    {
+        Path log = temporaryFolder.newFolder().toPath().resolve("Unfinished.txt.log");
+        Files.write(log, ("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+                + "<!DOCTYPE log SYSTEM \"logger.dtd\">\n<log>\n<record>\n"
+                + "  <level>INFO</level>\n  <message>Missing reading.</message>\n</record>\n"
+                + "<record>\n  <level>SEVERE</level>\n").getBytes(StandardCharsets.UTF_8));
+
+        LogSummary summary = BasicLogParser.summarize(log.toString());
+        assertFalse(summary.isComplete());
+        assertEquals(1, summary.getNumberOfRecords());
+        assertEquals(1, summary.getCount("INFO", "Missing reading."));
+    }
+
+    @Test
+    public void corruptLogIsAnError() throws IOException
+    {
+        Path log = temporaryFolder.newFolder().toPath().resolve("Corrupt.txt.log");
+        Files.write(log, ("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+                + "<log>\n<record>\n  <level>INFO</lev>\n</record>\n</log>\n")
+                .getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            BasicLogParser.summarize(log.toString());
+            fail("a log that is broken part way through isn't just unfinished");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void fileThatIsNotXmlIsAnError() throws IOException
+    {
+        Path log = temporaryFolder.newFolder().toPath().resolve("NotXml.txt.log");
+        Files.write(log, "A 1 2 35\nB 1 2 36\n".getBytes(StandardCharsets.UTF_8));
+        BasicLogParser.summarize(log.toString());
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class TestOffHeapReadingStore
+{
+    private static SensorReadingsParser parserOf(String contents) throws IOException
+    {
+        return new SensorReadingsParser(SensorDataSource.fromBuffer(
+                ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8))), null);
+    }
+
+    @Test
+    public void appendsEveryEntryOfAFile() throws IOException
+    {
+        OffHeapReadingStore store = new OffHeapReadingStore();
+        SensorReadingsParser parser = parserOf("0 23\n1 42\n34 56\nN 1 2 35\nO 3 4 36\nA 5 6 37\n"
+                + "D 7 8 38\n");
+        assertEquals(4, store.appendAll(parser));
+        parser.close();
+
+        assertEquals(4, store.size());
+        assertEquals(20, store.getBytesPerRow());
+        assertEquals("ReadingSet{sequenceNumber=13, timeSlotID='N', data=[1, 2, 35]}",
+                store.get(0).toString());
+        assertEquals("ReadingSet{sequenceNumber=18, timeSlotID='D', data=[7, 8, 38]}",
+                store.get(3).toString());
+        assertEquals(1, store.get(2).getCycle());
+    }
+
+    @Test
+    public void cursorReadsRowsInPlace()
+    {
+        OffHeapReadingStore store = new OffHeapReadingStore(2, 3);
+        for (int sequenceNumber = 0; sequenceNumber < 10; sequenceNumber++)
+        {
+            store.append(new ReadingSet(sequenceNumber * 4L,
+                    (char) ('A' + sequenceNumber * 4 % 15),
+                    new int[]{sequenceNumber, -sequenceNumber}));
+        }
+
+        OffHeapReadingStore.Cursor cursor = store.cursor();
+        assertEquals(-1, cursor.getRow());
+        int rows = 0;
+        while (cursor.advance())
+        {
+            assertEquals(rows * 4L, cursor.getSequenceNumber());
+            assertEquals((char) ('A' + rows * 4 % 15), cursor.getTimeSlotID());
+            assertEquals(rows * 4L / 15, cursor.getCycle());
+            assertEquals(rows, cursor.getData(0));
+            assertEquals(-rows, cursor.getData(1));
+            rows++;
+        }
+        assertEquals(10, rows);
+        assertEquals(9, cursor.getRow());
+        assertEquals(4 * 3 * store.getBytesPerRow() + 64, store.getMemoryFootprint());
+
+        cursor.seek(4);
+        assertEquals(16, cursor.getSequenceNumber());
+        store.append(new ReadingSet(40, 'K', new int[]{10, -10}));
+        cursor.seek(9);
+        assertTrue(cursor.advance());
+        assertEquals(10, cursor.getData(0));
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void keepsTimeSlotIdsThatDontMatchTheSequenceNumber()
+    {
+        OffHeapReadingStore store = new OffHeapReadingStore();
+        store.append(new ReadingSet(16, 'Q', new int[]{1, 2, 35}));
+        assertEquals("ReadingSet{sequenceNumber=16, timeSlotID='Q', data=[1, 2, 35]}",
+                store.get(0).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sequenceNumberMustFit()
+    {
+        new OffHeapReadingStore().append(new ReadingSet(1L << 48, 'A', new int[]{1, 2, 35}));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cursorMustAdvanceFirst()
+    {
+        OffHeapReadingStore store = new OffHeapReadingStore();
+        store.append(new ReadingSet('A', new int[]{1, 2, 35}));
+        store.cursor().getSequenceNumber();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void seekingPastTheEndFails()
+    {
+        OffHeapReadingStore store = new OffHeapReadingStore();
+        store.append(new ReadingSet('A', new int[]{1, 2, 35}));
+        store.cursor().seek(1);
+    }
+
+    @Test
+    public void clearEmptiesTheStore()
+    {
+        OffHeapReadingStore store = new OffHeapReadingStore();
+        store.append(new ReadingSet('B', new int[]{1, 2, 35}));
+        store.clear();
+        assertEquals(0, store.size());
+        assertFalse(store.cursor().advance());
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs every ParserEngine over the same files and checks that each one returns exactly the
+ * entries the reference parser does and leaves exactly the same log records behind.
+ */
+public class TestParserEquivalence
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final int LINES_PER_FILE = 1500;
+    private static final int NUMBER_OF_SEEDS = 12;
+
+    /**
+     * What one engine made of one file
+     */
+    private static class Output
+    {
+        private final List<String> entries;
+        private final List<String> logRecords;
+
+        private Output(List<String> entries, List<String> logRecords)
+        {
+            this.entries = entries;
+            this.logRecords = logRecords;
+        }
+    }
+
+    /**
+     * Run an engine over its own copy of a file, so every engine's log ends up somewhere else
+     */
+    private Output run(ParserEngine engine, Path file) throws Exception
+    {
+        Path directory = temporaryFolder.newFolder().toPath();
+        Files.copy(Paths.get("TestFiles/logger.dtd"), directory.resolve("logger.dtd"));
+        Path copy = directory.resolve(file.getFileName());
+        Files.copy(file, copy);
+
+        List<String> entries = engine.parse(copy.toString());
+        List<String> logRecords = new ArrayList<>();
+        String logFileTitle = copy + ".log";
+        if (Files.exists(Paths.get(logFileTitle)))
+        {
+            BasicLogParser lp = new BasicLogParser(logFileTitle);
+            for (int i = 0; i < lp.getNumberOfRecords(); i++)
+            {
+                logRecords.add(lp.getRecordLevel(i) + ": " + lp.getRecordMessage(i));
+            }
+        }
+        return new Output(entries, logRecords);
+    }
+
+    private void checkEnginesMatchReference(Path file) throws Exception
+    {
+        Output reference = run(ParserEngine.REFERENCE, file);
+        for (ParserEngine engine : ParserEngine.values())
+        {
+            Output output = run(engine, file);
+            String what = engine + " on " + file.getFileName();
+            List<String> expected = reference.entries;
+            boolean referenceThrew = !expected.isEmpty()
+                    && expected.get(expected.size() - 1).startsWith("threw ");
+            if (referenceThrew && !engine.keepsEntriesOfFailedParse())
+            {
+                expected = Collections.singletonList(expected.get(expected.size() - 1));
+            }
+            assertEquals(what, expected, output.entries);
+            assertEquals(what, reference.logRecords, output.logRecords);
+        }
+    }
+
+    @Test
+    public void enginesMatchOnTestFiles() throws Exception
+    {
+        try (DirectoryStream<Path> testFiles =
+                     Files.newDirectoryStream(Paths.get("TestFiles"), "*.txt"))
+        {
+            for (Path file : testFiles)
+            {
+                checkEnginesMatchReference(file);
+            }
+        }
+    }
+
+    @Test
+    public void enginesMatchWhileLogKeepsGoing() throws Exception
+    {
+        checkRandomFiles(SensorFileGenerator.AnomalyMix.loggedThroughout());
+    }
+
+    @Test
+    public void enginesMatchWithEveryProblem() throws Exception
+    {
+        checkRandomFiles(SensorFileGenerator.AnomalyMix.everything());
+    }
+
+    @Test
+    public void enginesMatchOnCleanFile() throws Exception
+    {
+        checkRandomFiles(SensorFileGenerator.AnomalyMix.clean());
+    }
+
+    private void checkRandomFiles(SensorFileGenerator.AnomalyMix mix) throws Exception
+    {
+        Path directory = temporaryFolder.newFolder().toPath();
+        for (long seed = 1; seed <= NUMBER_OF_SEEDS; seed++)
+        {
+            Path file = directory.resolve("Random" + seed + ".txt");
+            new SensorFileGenerator(seed, mix).write(file, LINES_PER_FILE);
+            checkEnginesMatchReference(file);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the parser against what the original parser returned and logged for the same files, as
+ * kept in TestFiles/golden (see GoldenOutput).  TestParserEquivalence only compares the parser
+ * with other ways of using the same parser, so it can't tell if the parser itself has changed.
+ *
+ * The golden files cover every file in TestFiles, along with some files from SensorFileGenerator
+ * kept in TestFiles/golden: Generated1 and Generated7 use AnomalyMix.loggedThroughout,
+ * Generated3 and Generated4 use AnomalyMix.everything and Generated5 uses AnomalyMix.occasional,
+ * each with 1000 lines and the seed in its name.  Generated7 stops part way with an exception.
+ */
+public class TestParserGoldenOutput
+{
+    private static final Path GOLDEN_DIRECTORY = Paths.get("TestFiles/golden");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private void checkMatchesGolden(Path file) throws Exception
+    {
+        Path copy = temporaryFolder.newFolder().toPath().resolve(file.getFileName());
+        Files.copy(file, copy);
+
+        List<String> output = new ArrayList<>(ParserEngine.REFERENCE.parse(copy.toString()));
+        output.add(GoldenOutput.LOG_SEPARATOR);
+        output.addAll(GoldenOutput.readLog(copy + ".log"));
+
+        Path golden = GoldenOutput.goldenFile(GOLDEN_DIRECTORY, file);
+        assertEquals(file.getFileName().toString(),
+                Files.readAllLines(golden, StandardCharsets.UTF_8), output);
+    }
+
+    private void checkAllMatchGolden(Path directory) throws Exception
+    {
+        int checked = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.txt"))
+        {
+            for (Path file : files)
+            {
+                checkMatchesGolden(file);
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void testFilesMatchGolden() throws Exception
+    {
+        checkAllMatchGolden(Paths.get("TestFiles"));
+    }
+
+    @Test
+    public void generatedFilesMatchGolden() throws Exception
+    {
+        checkAllMatchGolden(GOLDEN_DIRECTORY);
+    }
+}
@@ -0,0 +1,153 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times the parser on a large generated file and fails if one of the faster ways of using it has
+ * fallen behind REFERENCE, timed in the same run, by much more than
+ * TestFiles/throughput-baseline.properties says it should.  Comparing against REFERENCE instead
+ * of against fixed numbers keeps the test from timing the machine it runs on.
+ *
+ * The baseline also records how many lines per second REFERENCE managed on the machine it was
+ * recorded on; that is only checked when the test is run with -Dthroughput.absolute=true on a
+ * similar machine.  The baseline is only written when the test is run with
+ * -Dthroughput.record=true, and is not checked on that run.  -Dthroughput.tolerance sets how
+ * much slower than the baseline is still a pass (0.5 by default, meaning half the baseline's
+ * speed).
+ */
+public class TestParserThroughput
+{
+    private static final Path BASELINE_FILE = Paths.get("TestFiles/throughput-baseline.properties");
+    private static final ParserEngine[] ENGINES = {ParserEngine.REFERENCE,
+            ParserEngine.LIGHTWEIGHT_CURSOR, ParserEngine.IN_MEMORY};
+    private static final String RELATIVE_SUFFIX = ".relative";
+    private static final int NUMBER_OF_LINES = 200000;
+    private static final int RUNS = 5;
+    private static final long SEED = 300;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void throughputHasNotRegressed() throws IOException
+    {
+        Path file = temporaryFolder.getRoot().toPath().resolve("Large.txt");
+        new SensorFileGenerator(SEED, SensorFileGenerator.AnomalyMix.occasional())
+                .write(file, NUMBER_OF_LINES);
+        Map<ParserEngine, Long> linesPerSecond = measure(file);
+        long reference = linesPerSecond.get(ParserEngine.REFERENCE);
+
+        if (Boolean.getBoolean("throughput.record"))
+        {
+            Properties measured = new Properties();
+            measured.setProperty(ParserEngine.REFERENCE.name(), Long.toString(reference));
+            for (ParserEngine engine : ENGINES)
+            {
+                if (engine != ParserEngine.REFERENCE)
+                {
+                    measured.setProperty(engine.name() + RELATIVE_SUFFIX, String.format("%.2f",
+                            (double) linesPerSecond.get(engine) / reference));
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(BASELINE_FILE))
+            {
+                measured.store(out, "Lines per second for TestParserThroughput");
+            }
+            System.out.println("Recorded " + measured + " in " + BASELINE_FILE);
+            return;
+        }
+
+        assertTrue("No baseline in " + BASELINE_FILE + "; run with -Dthroughput.record=true",
+                Files.exists(BASELINE_FILE));
+        Properties baseline = new Properties();
+        try (InputStream in = Files.newInputStream(BASELINE_FILE))
+        {
+            baseline.load(in);
+        }
+        double tolerance = Double.parseDouble(System.getProperty("throughput.tolerance", "0.5"));
+
+        for (ParserEngine engine : ENGINES)
+        {
+            if (engine == ParserEngine.REFERENCE)
+            {
+                continue;
+            }
+            double relative = (double) linesPerSecond.get(engine) / reference;
+            double expected =
+                    Double.parseDouble(baseline.getProperty(engine.name() + RELATIVE_SUFFIX));
+            assertTrue(String.format("%s parsed %,d lines/s, %.2f times REFERENCE's %,d; "
+                            + "baseline is %.2f times", engine, linesPerSecond.get(engine),
+                    relative, reference, expected), relative >= expected * tolerance);
+        }
+        if (Boolean.getBoolean("throughput.absolute"))
+        {
+            long expected = Long.parseLong(baseline.getProperty(ParserEngine.REFERENCE.name()));
+            assertTrue("REFERENCE parsed " + reference + " lines/s, baseline is " + expected,
+                    reference >= expected * tolerance);
+        }
+    }
+
+    /**
+     * Time every engine with the console handler taken off the root logger, since how fast the
+     * console keeps up has nothing to do with the parser.  The engines take turns, so a slow
+     * patch on the machine doesn't land on just one of them.
+     *
+     * @return the best lines per second of each engine over several runs, so one slow run
+     * doesn't fail the build
+     */
+    private static Map<ParserEngine, Long> measure(Path file) throws IOException
+    {
+        Logger root = Logger.getLogger("");
+        Handler[] rootHandlers = root.getHandlers();
+        for (Handler handler : rootHandlers)
+        {
+            root.removeHandler(handler);
+        }
+        try
+        {
+            Map<ParserEngine, Long> best = new EnumMap<>(ParserEngine.class);
+            for (ParserEngine engine : ENGINES)
+            {
+                engine.parse(file.toString());
+                best.put(engine, Long.MAX_VALUE);
+            }
+            for (int run = 0; run < RUNS; run++)
+            {
+                for (ParserEngine engine : ENGINES)
+                {
+                    long start = System.nanoTime();
+                    int entries = engine.parse(file.toString()).size();
+                    best.put(engine, Math.min(best.get(engine), System.nanoTime() - start));
+                    assertTrue(entries > 0);
+                }
+            }
+            Map<ParserEngine, Long> linesPerSecond = new EnumMap<>(ParserEngine.class);
+            for (ParserEngine engine : ENGINES)
+            {
+                linesPerSecond.put(engine, NUMBER_OF_LINES * 1000000000L / best.get(engine));
+            }
+            return linesPerSecond;
+        }
+        finally
+        {
+            for (Handler handler : rootHandlers)
+            {
+                root.addHandler(handler);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TestSensorReadingsCache
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String copyToTempDirectory(String fileTitle) throws IOException
+    {
+        Path source = Paths.get(fileTitle);
+        Path copy = temporaryFolder.newFolder().toPath().resolve(source.getFileName());
+        Files.copy(source, copy);
+        return copy.toString();
+    }
+
+    @Test
+    public void hitsSkipParsingAndLogging() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/MissingRecord.txt");
+        SensorReadingsCache cache = new SensorReadingsCache(1 << 20, false);
+
+        CachedReadings readings = cache.get(fileTitle);
+        assertEquals(5, readings.size());
+        assertFalse(readings.isOffHeap());
+        assertEquals('C', readings.getTimeSlotID(2));
+        assertEquals(2, readings.getSequenceNumber(2));
+        assertEquals(44, readings.getData(2, 2));
+        assertEquals("ReadingSet{sequenceNumber=4, timeSlotID='E', data=[3, 4, 44]}",
+                readings.get(4).toString());
+
+        Path log = Paths.get(fileTitle + ".log");
+        assertTrue(Files.exists(log));
+        Files.delete(log);
+        assertSame(readings, cache.get(fileTitle));
+        assertFalse(Files.exists(log));
+    }
+
+    @Test
+    public void changedFilesAreParsedAgain() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/OneRecord.txt");
+        SensorReadingsCache cache = new SensorReadingsCache(1 << 20, true);
+        CachedReadings readings = cache.get(fileTitle);
+        assertEquals(1, readings.size());
+        assertTrue(readings.isOffHeap());
+
+        Path path = Paths.get(fileTitle);
+        Files.write(path, "0 23\n1 42\n34 56\nA 1 2 35\nB 1 2 36\n"
+                .getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path,
+                FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 1000));
+        readings = cache.get(fileTitle);
+        assertEquals(2, readings.size());
+        assertEquals(36, readings.getData(1, 2));
+        assertEquals(1, cache.getNumberOfFiles());
+    }
+
+    @Test
+    public void leastRecentlyUsedFilesAreEvicted() throws IOException
+    {
+        String first = copyToTempDirectory("TestFiles/OneRecord.txt");
+        String second = copyToTempDirectory("TestFiles/MissingRecord.txt");
+        String third = copyToTempDirectory("TestFiles/MissingManyRecords.txt");
+        long footprint = new SensorReadingsCache(1 << 20, false).get(second)
+                .getMemoryFootprint();
+        SensorReadingsCache cache = new SensorReadingsCache(2 * footprint, false);
+
+        CachedReadings firstReadings = cache.get(first);
+        cache.get(second);
+        assertSame(firstReadings, cache.get(first));
+        cache.get(third);
+
+        assertEquals(2, cache.getNumberOfFiles());
+        assertTrue(cache.getMemoryUsed() <= 2 * footprint);
+        assertSame(firstReadings, cache.get(first));
+        assertEquals(2, cache.getNumberOfFiles());
+    }
+
+    @Test
+    public void indexesPastTheEndAreRejected() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/MissingRecord.txt");
+        CachedReadings readings = new SensorReadingsCache(1 << 20, true).get(fileTitle);
+        try
+        {
+            readings.getSequenceNumber(readings.size());
+            fail("the sequence number column ends at size()");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+        try
+        {
+            readings.getData(0, SensorReadingsParser.NUMBER_OF_SENSORS);
+            fail("there are only three sensors");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void filesOverTheBudgetAreNotCached() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/MissingRecord.txt");
+        long footprint = new SensorReadingsCache(1 << 20, false).get(fileTitle)
+                .getMemoryFootprint();
+        Path log = Paths.get(fileTitle + ".log");
+        Files.delete(log);
+
+        SensorReadingsCache cache = new SensorReadingsCache(footprint - 1, false);
+        assertNull(cache.get(fileTitle));
+        assertEquals(0, cache.getNumberOfFiles());
+        assertEquals(0, cache.getMemoryUsed());
+        assertTrue(Files.exists(log));
+    }
+
+    @Test
+    public void threadsAskingForTheSameFileShareOneParse() throws Exception
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/TimeSlotIDWrap.txt");
+        SensorReadingsCache cache = new SensorReadingsCache(1 << 20, true);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<CachedReadings>> results = new ArrayList<>();
+            for (int request = 0; request < 8; request++)
+            {
+                results.add(threads.submit(() -> cache.get(fileTitle)));
+            }
+            CachedReadings first = results.get(0).get();
+            for (Future<CachedReadings> result : results)
+            {
+                assertSame(first, result.get());
+            }
+        }
+        finally
+        {
+            threads.shutdownNow();
+        }
+        assertEquals(1, cache.getNumberOfFiles());
+    }
+}
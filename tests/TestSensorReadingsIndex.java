@@ -0,0 +1,136 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestSensorReadingsIndex
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static final int NUMBER_OF_CYCLES = 40;
+
+    /**
+     * Write a file of NUMBER_OF_CYCLES cycles with a few missing entries and bad records, so the
+     * index has to save parser state that isn't at the start of a clean cycle
+     */
+    private String writeLongFile() throws IOException
+    {
+        StringBuilder contents = new StringBuilder("0 23\n1 42\n34 56\n");
+        for (int cycle = 0; cycle < NUMBER_OF_CYCLES; cycle++)
+        {
+            for (int slot = 0; slot < SensorReadingsParser.READINGS_PER_GROUP; slot++)
+            {
+                char timeSlotID = (char) ('A' + slot);
+                if (cycle % 7 == 3 && slot == 14)
+                {
+                    continue;
+                }
+                if (cycle % 5 == 2 && slot == 0)
+                {
+                    contents.append(timeSlotID).append(" 1 2\n");
+                }
+                contents.append(timeSlotID).append(' ').append(cycle % 23).append(' ')
+                        .append(slot + 2).append(' ').append(40 + slot).append('\n');
+            }
+        }
+        Path file = temporaryFolder.getRoot().toPath().resolve("Long.txt");
+        Files.write(file, contents.toString().getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    private static List<ReadingSet> readAll(String fileTitle) throws IOException
+    {
+        SensorReadingsParser p =
+                new SensorReadingsParser(SensorDataSource.fromFile(fileTitle), null);
+        List<ReadingSet> readings = new ArrayList<>();
+        try
+        {
+            while (true)
+            {
+                readings.add(p.getNext());
+            }
+        }
+        catch (SensorReadingsParser.NoMoreData e)
+        {
+            p.close();
+        }
+        return readings;
+    }
+
+    private static void assertSameReadings(List<ReadingSet> expected, List<ReadingSet> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(expected.get(i).toString(), actual.get(i).toString());
+        }
+    }
+
+    @Test
+    public void rangeMatchesFullParse() throws IOException
+    {
+        String fileTitle = writeLongFile();
+        SensorReadingsIndex.create(fileTitle, 3);
+        SensorReadingsIndex index = SensorReadingsIndex.load(fileTitle);
+        assertEquals(3, index.getCyclesPerEntry());
+        assertEquals(13, index.getNumberOfEntries());
+
+        List<ReadingSet> all = readAll(fileTitle);
+        for (long first = 0; first < NUMBER_OF_CYCLES; first += 4)
+        {
+            for (long last = first; last < NUMBER_OF_CYCLES + 2; last += 5)
+            {
+                List<ReadingSet> expected = new ArrayList<>();
+                for (ReadingSet r : all)
+                {
+                    if (first <= r.getCycle() && r.getCycle() <= last)
+                    {
+                        expected.add(r);
+                    }
+                }
+                assertSameReadings(expected, index.readCycles(fileTitle, first, last));
+            }
+        }
+    }
+
+    @Test
+    public void rangeBeforeFirstEntryReadsFromStart() throws IOException
+    {
+        List<ReadingSet> readings = SensorReadingsIndex.create("TestFiles/TimeSlotIDWrap.txt",
+                SensorReadingsIndex.DEFAULT_CYCLES_PER_ENTRY)
+                .readCycles("TestFiles/TimeSlotIDWrap.txt", 1, 1);
+        Files.delete(Path.of(SensorReadingsIndex.indexTitle("TestFiles/TimeSlotIDWrap.txt")));
+
+        assertEquals(1, readings.size());
+        assertEquals('A', readings.get(0).getTimeSlotID());
+        assertEquals(15, readings.get(0).getSequenceNumber());
+    }
+
+    @Test
+    public void staleIndexIsRejected() throws IOException
+    {
+        String fileTitle = writeLongFile();
+        SensorReadingsIndex.create(fileTitle, 3);
+        Files.write(Path.of(fileTitle), "0 23\n1 42\n34 56\nA 1 2 35\n"
+                .getBytes(StandardCharsets.UTF_8));
+        boolean rejected = false;
+        try
+        {
+            SensorReadingsIndex.load(fileTitle);
+        }
+        catch (IOException e)
+        {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+}
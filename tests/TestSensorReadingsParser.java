@@ -1,13 +1,34 @@
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
 
 import static org.junit.Assert.*;
 
 public class TestSensorReadingsParser
 {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
     @Test
     public void oneGoodRecord() throws IOException, SensorReadingsParser.NoMoreData
@@ -272,6 +293,172 @@ public class TestSensorReadingsParser
                 new String[]{"INFO"});
     }
 
+    @Test
+    public void sequenceNumbersContinueAcrossWrap()
+            throws IOException, SensorReadingsParser.NoMoreData
+    {
+        SensorReadingsParser p = new SensorReadingsParser(
+                SensorDataSource.fromFile("TestFiles/TimeSlotIDWrapMissingOne.txt"), null);
+        for (int i = 0; i < SensorReadingsParser.READINGS_PER_GROUP; i++)
+        {
+            ReadingSet r = p.getNext();
+            assertEquals(i, r.getSequenceNumber());
+            assertEquals(0, r.getCycle());
+        }
+        ReadingSet r = p.getNext();
+        assertEquals('A', r.getTimeSlotID());
+        assertEquals(15, r.getSequenceNumber());
+        assertEquals(1, r.getCycle());
+        r = p.getNext();
+        assertEquals('B', r.getTimeSlotID());
+        assertEquals(16, r.getSequenceNumber());
+        p.close();
+    }
+
+    @Test
+    public void sequenceNumbersSkipMissingSlots()
+            throws IOException, SensorReadingsParser.NoMoreData
+    {
+        SensorReadingsParser p = new SensorReadingsParser(
+                SensorDataSource.fromFile("TestFiles/MissingManyRecords.txt"), null);
+        assertEquals(0, p.getNext().getSequenceNumber());
+        assertEquals(1, p.getNext().getSequenceNumber());
+        ReadingSet r = p.getNext();
+        assertEquals('M', r.getTimeSlotID());
+        assertEquals(12, r.getSequenceNumber());
+        assertEquals(13, p.getNext().getSequenceNumber());
+        p.close();
+    }
+
+    @Test
+    public void sequenceNumbersSkipGapsAcrossWrap()
+            throws IOException, SensorReadingsParser.NoMoreData
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(
+                "0 23\n1 42\n34 56\nM 1 2 35\nN 1 2 35\nC 1 2 35\nD 1 2 35\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        SensorReadingsParser p =
+                new SensorReadingsParser(SensorDataSource.fromBuffer(buffer), null);
+        assertEquals(12, p.getNext().getSequenceNumber());
+        assertEquals(13, p.getNext().getSequenceNumber());
+        ReadingSet r = p.getNext();
+        assertEquals('C', r.getTimeSlotID());
+        assertEquals(17, r.getSequenceNumber());
+        assertEquals(1, r.getCycle());
+        assertEquals(18, p.getNext().getSequenceNumber());
+        p.close();
+    }
+
+    @Test
+    public void advanceReadsSameEntriesAsGetNext() throws IOException
+    {
+        SensorReadingsParser p = new SensorReadingsParser(
+                SensorDataSource.fromFile("TestFiles/BadRecordInvalidDataFormat.txt"), null);
+        assertTrue(p.advance());
+        assertEquals('A', p.getTimeSlotID());
+        assertEquals(0, p.getSequenceNumber());
+        assertEquals(55, p.getData(2));
+        assertTrue(p.advance());
+        assertEquals('B', p.getTimeSlotID());
+        assertEquals(1, p.getSequenceNumber());
+        assertEquals(0, p.getCycle());
+        assertEquals(1, p.getData(0));
+        assertEquals("ReadingSet{sequenceNumber=1, timeSlotID='B', data=[1, 3, 55]}",
+                p.getReadingSet().toString());
+        assertFalse(p.advance());
+        assertFalse(p.advance());
+        checkForEOF(p);
+        p.close();
+    }
+
+    /**
+     * Copy a test file, along with the DTD its log will refer to, somewhere the test can
+     * create and delete logs freely
+     */
+    private String copyToTempDirectory(String fileTitle) throws IOException
+    {
+        Path directory = temporaryFolder.newFolder().toPath();
+        Files.copy(Paths.get("TestFiles/logger.dtd"), directory.resolve("logger.dtd"));
+        Path copy = directory.resolve(Paths.get(fileTitle).getFileName());
+        Files.copy(Paths.get(fileTitle), copy);
+        return copy.toString();
+    }
+
+    @Test
+    public void lightweightOpenSkipsLogForCleanFile() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/TimeSlotIDWrap.txt");
+        Path log = Paths.get(fileTitle + ".log");
+
+        SensorReadingsParser p = SensorReadingsParser.openLightweight(fileTitle);
+        int count = 0;
+        while (p.advance())
+        {
+            count++;
+        }
+        p.close();
+
+        assertEquals(SensorReadingsParser.READINGS_PER_GROUP + 1, count);
+        assertFalse(Files.exists(log));
+    }
+
+    @Test
+    public void lightweightOpenReplacesOldLog() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/OutOfRangeVeryHigh.txt");
+        SensorReadingsParser p = SensorReadingsParser.openLightweight(fileTitle);
+        while (p.advance())
+        {
+            // the errors leave a log behind
+        }
+        p.close();
+
+        // the file gets fixed, so the next parse is clean
+        Files.copy(Paths.get("TestFiles/TimeSlotIDWrap.txt"), Paths.get(fileTitle),
+                StandardCopyOption.REPLACE_EXISTING);
+        p = SensorReadingsParser.openLightweight(fileTitle);
+        while (p.advance())
+        {
+            // only the log is checked
+        }
+        p.close();
+
+        verifyLogSequence(fileTitle + ".log", new String[]{});
+    }
+
+    @Test
+    public void lazyHandlerPassesOnItsSettings() throws IOException
+    {
+        Path log = Paths.get(copyToTempDirectory("TestFiles/OneRecord.txt") + ".log");
+        LazyFileHandler handler = new LazyFileHandler(log.toString());
+        handler.setFormatter(new SimpleFormatter());
+        handler.setLevel(Level.WARNING);
+        handler.publish(new LogRecord(Level.INFO, "left out"));
+        assertFalse(handler.isLogFileCreated());
+        handler.publish(new LogRecord(Level.SEVERE, "kept"));
+        handler.close();
+
+        String contents = new String(Files.readAllBytes(log), StandardCharsets.UTF_8);
+        assertTrue(contents.contains("SEVERE: kept"));
+        assertFalse(contents.contains("left out"));
+        assertFalse(contents.contains("<log>"));
+    }
+
+    @Test
+    public void lightweightOpenLogsErrors() throws IOException
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/OutOfRangeVeryHigh.txt");
+        SensorReadingsParser p = SensorReadingsParser.openLightweight(fileTitle);
+        assertTrue(p.advance());
+        assertFalse(Files.exists(Paths.get(fileTitle + ".log")));
+        assertTrue(p.advance());
+        assertTrue(Files.exists(Paths.get(fileTitle + ".log")));
+        assertFalse(p.advance());
+        p.close();
+
+        verifyLogSequence(fileTitle + ".log", new String[]{"SEVERE", "SEVERE", "SEVERE"});
+    }
+
     @Test
     public void matchingSetsGetLogged()
             throws IOException
@@ -294,4 +481,222 @@ public class TestSensorReadingsParser
         verifyLogSequence("TestFiles/MatchingData.txt.log", new String[]{"INFO",
                 "INFO","INFO","INFO"});
     }
+
+    @Test
+    public void readsFromBuffer() throws IOException, SensorReadingsParser.NoMoreData
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(
+                "0 23\n1 42\n34 56\nA 1 2 35\nB 1 A 35\nB 24 2 35\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        RecordingHandler diagnostics = new RecordingHandler();
+        SensorReadingsParser p =
+                new SensorReadingsParser(SensorDataSource.fromBuffer(buffer), diagnostics);
+        ReadingSet r = p.getNext();
+        assertEquals('A', r.getTimeSlotID());
+        r = p.getNext();
+        assertEquals('B', r.getTimeSlotID());
+        assertEquals(23, r.getData(0));
+        checkForEOF(p);
+        p.close();
+
+        assertEquals(2, diagnostics.levels.size());
+        assertEquals("SEVERE", diagnostics.levels.get(0));
+        assertEquals("INFO", diagnostics.levels.get(1));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    public void readsFromStreamWithoutDiagnostics()
+            throws IOException, SensorReadingsParser.NoMoreData
+    {
+        ByteArrayInputStream stream = new ByteArrayInputStream(
+                "0 23\n1 42\n34 56\nA 1 2 35\n".getBytes(StandardCharsets.UTF_8));
+        SensorReadingsParser p =
+                new SensorReadingsParser(SensorDataSource.fromInputStream(stream), null);
+        assertEquals(34, p.getMin(2));
+        ReadingSet r = p.getNext();
+        assertEquals('A', r.getTimeSlotID());
+        assertEquals(35, r.getData(2));
+        checkForEOF(p);
+        p.close();
+    }
+
+    @Test
+    public void callersHandlerKeepsItsLevel() throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(
+                "0 23\n1 42\n34 56\nA 1 2 35\nB 1 A 35\nB 24 2 35\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        RecordingHandler diagnostics = new RecordingHandler();
+        diagnostics.setLevel(Level.WARNING);
+        SensorReadingsParser p =
+                new SensorReadingsParser(SensorDataSource.fromBuffer(buffer), diagnostics);
+        while (p.advance())
+        {
+            // only the diagnostics are checked
+        }
+        p.close();
+
+        assertEquals(Level.WARNING, diagnostics.getLevel());
+        assertEquals(1, diagnostics.levels.size());
+        assertEquals("SEVERE", diagnostics.levels.get(0));
+        assertFalse(diagnostics.closed);
+    }
+
+    @Test
+    public void callersHandlerLeftOpenWhenRangesCantBeRead()
+    {
+        ByteBuffer buffer = ByteBuffer.wrap("0 23\n1 x\n34 56\n".getBytes(StandardCharsets.UTF_8));
+        RecordingHandler diagnostics = new RecordingHandler();
+        try
+        {
+            new SensorReadingsParser(SensorDataSource.fromBuffer(buffer), diagnostics);
+            fail("the bad range should have been reported");
+        }
+        catch (IOException | NumberFormatException e)
+        {
+            assertFalse(diagnostics.closed);
+        }
+    }
+
+    @Test
+    public void logFileClosedWhenRangesCantBeRead() throws IOException
+    {
+        Path file = Paths.get(copyToTempDirectory("TestFiles/OneRecord.txt"));
+        Files.write(file, "0 23\n1 x\n34 56\nA 1 2 35\n".getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            new SensorReadingsParser(file.toString());
+            fail("the bad range should have been reported");
+        }
+        catch (NumberFormatException e)
+        {
+            assertFalse(Files.exists(Paths.get(file + ".log.lck")));
+        }
+    }
+
+    @Test
+    public void sharedHandlerOutlivesBadColumnCount() throws IOException
+    {
+        RecordingHandler diagnostics = new RecordingHandler();
+        SensorReadingsParser first = new SensorReadingsParser(SensorDataSource.fromBuffer(
+                ByteBuffer.wrap("0 23\n1 42\n34 56\nA 1 2\nB 1 2 35\n"
+                        .getBytes(StandardCharsets.UTF_8))), diagnostics);
+        SensorReadingsParser second = new SensorReadingsParser(SensorDataSource.fromBuffer(
+                ByteBuffer.wrap("0 23\n1 42\n34 56\nA 30 2 35\n"
+                        .getBytes(StandardCharsets.UTF_8))), diagnostics);
+        while (first.advance())
+        {
+            // the missing column stops the first parser's logging
+        }
+        assertTrue(second.advance());
+        first.close();
+        second.close();
+
+        assertFalse(diagnostics.closed);
+        assertEquals(2, diagnostics.levels.size());
+        assertEquals("SEVERE", diagnostics.levels.get(0));
+        assertEquals("INFO", diagnostics.levels.get(1));
+    }
+
+    @Test
+    public void logFinishedWhenParserNeverClosed() throws Exception
+    {
+        String fileTitle = copyToTempDirectory("TestFiles/OutOfRangeVeryHigh.txt");
+        Process process = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                NeverClosed.class.getName(), fileTitle).inheritIO().start();
+        assertEquals(0, process.waitFor());
+
+        assertFalse(Files.exists(Paths.get(fileTitle + ".log.lck")));
+        verifyLogSequence(fileTitle + ".log", new String[]{"SEVERE", "SEVERE", "SEVERE"});
+    }
+
+    /**
+     * Reads a whole file and exits without closing the parser
+     */
+    public static class NeverClosed
+    {
+        public static void main(String[] args) throws IOException
+        {
+            SensorReadingsParser p = new SensorReadingsParser(args[0]);
+            while (p.advance())
+            {
+                // the parser is left open on purpose
+            }
+        }
+    }
+
+    @Test
+    public void streamSourceOpensOnlyOnce() throws IOException
+    {
+        SensorDataSource source = SensorDataSource.fromInputStream(new ByteArrayInputStream(
+                "0 23\n1 42\n34 56\n".getBytes(StandardCharsets.UTF_8)));
+        source.open();
+        try
+        {
+            source.open();
+            fail("a stream can't be read from the start twice");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonBlockingChannelsAreRejected() throws IOException
+    {
+        Pipe pipe = Pipe.open();
+        try
+        {
+            pipe.source().configureBlocking(false);
+            SensorDataSource.fromChannel(pipe.source());
+        }
+        finally
+        {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void closedBufferChannelCantBeRead() throws IOException
+    {
+        ReadableByteChannel channel =
+                SensorDataSource.fromBuffer(ByteBuffer.wrap(new byte[]{'0'})).open();
+        channel.close();
+        channel.read(ByteBuffer.allocate(1));
+    }
+
+    /**
+     * Keeps the levels of the records it is given so tests can check diagnostics without
+     * writing a log file
+     */
+    private static class RecordingHandler extends Handler
+    {
+        private final List<String> levels = new ArrayList<>();
+        private boolean closed = false;
+
+        @Override
+        public void publish(LogRecord record)
+        {
+            if (isLoggable(record))
+            {
+                levels.add(record.getLevel().getName());
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
 }
@@ -0,0 +1,117 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TestSensorStationMerger
+{
+    private static SensorReadingsParser openQuietly(String fileTitle) throws IOException
+    {
+        return new SensorReadingsParser(SensorDataSource.fromFile(fileTitle), null);
+    }
+
+    private static SensorReadingsParser parserOf(String contents) throws IOException
+    {
+        return new SensorReadingsParser(SensorDataSource.fromBuffer(
+                ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8))), null);
+    }
+
+    @Test
+    public void gapsBecomeNulls() throws IOException, SensorReadingsParser.NoMoreData
+    {
+        SensorStationMerger merger = new SensorStationMerger(Arrays.asList(
+                openQuietly("TestFiles/MissingManyRecords.txt"),
+                openQuietly("TestFiles/OneRecord.txt")));
+
+        MergedReadingSet row = merger.getNext();
+        assertEquals('A', row.getTimeSlotID());
+        assertEquals(0, row.getCycle());
+        assertEquals(2, row.getNumberOfStations());
+        assertEquals(1, row.getReading(0).getData(0));
+        assertEquals(35, row.getReading(1).getData(2));
+
+        row = merger.getNext();
+        assertEquals('B', row.getTimeSlotID());
+        assertFalse(row.isMissing(0));
+        assertTrue(row.isMissing(1));
+
+        row = merger.getNext();
+        assertEquals('M', row.getTimeSlotID());
+        assertEquals(54, row.getReading(0).getData(2));
+        assertTrue(row.isMissing(1));
+
+        row = merger.getNext();
+        assertEquals('N', row.getTimeSlotID());
+        checkForEOF(merger);
+    }
+
+    @Test
+    public void failedStationIsDropped() throws IOException, SensorReadingsParser.NoMoreData
+    {
+        // the line after a reading of 150% or more is read without being checked, so the
+        // letter in it stops the first station
+        SensorStationMerger merger = new SensorStationMerger(Arrays.asList(
+                parserOf("0 23\n1 42\n34 56\nA 1 2 35\nB 40 2 35\nC 1 x 35\nD 1 2 35\n"),
+                parserOf("0 23\n1 42\n34 56\nA 1 2 36\nB 1 2 36\n")));
+
+        MergedReadingSet row = merger.getNext();
+        assertEquals('A', row.getTimeSlotID());
+        assertFalse(row.isMissing(0));
+        try
+        {
+            merger.getNext();
+            fail("the first station's parser should have thrown");
+        }
+        catch (NumberFormatException e)
+        {
+            // expected
+        }
+
+        row = merger.getNext();
+        assertEquals('B', row.getTimeSlotID());
+        assertTrue(row.isMissing(0));
+        assertEquals(36, row.getReading(1).getData(2));
+        checkForEOF(merger);
+    }
+
+    @Test
+    public void alignsAcrossWrap() throws IOException, SensorReadingsParser.NoMoreData
+    {
+        SensorStationMerger merger = new SensorStationMerger(Arrays.asList(
+                openQuietly("TestFiles/MissingRecord.txt"),
+                openQuietly("TestFiles/TimeSlotIDWrap.txt")));
+
+        for (int i = 0; i < SensorReadingsParser.READINGS_PER_GROUP; i++)
+        {
+            MergedReadingSet row = merger.getNext();
+            assertEquals(0, row.getCycle());
+            assertEquals((char) ('A' + i), row.getTimeSlotID());
+            assertEquals(i >= 5, row.isMissing(0));
+            assertFalse(row.isMissing(1));
+        }
+        MergedReadingSet row = merger.getNext();
+        assertEquals(1, row.getCycle());
+        assertEquals('A', row.getTimeSlotID());
+        assertTrue(row.isMissing(0));
+        assertEquals(2, row.getReading(1).getData(1));
+        checkForEOF(merger);
+    }
+
+    private static void checkForEOF(SensorStationMerger merger)
+    {
+        boolean foundEOF = false;
+        try
+        {
+            merger.getNext();
+        }
+        catch (SensorReadingsParser.NoMoreData e)
+        {
+            foundEOF = true;
+        }
+        assertTrue(foundEOF);
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Times opening, reading and closing thousands of tiny station files on disk, comparing the
+ * usual constructor (which always writes a log file) with openLightweight (which only writes
+ * one if something goes wrong).  Every file is like OneRecord.txt: clean, with a single entry.
+ *
+ * Run with: java TinyFileOpenBenchmark [number of files]
+ */
+public class TinyFileOpenBenchmark
+{
+    private static final int DEFAULT_NUMBER_OF_FILES = 2000;
+    private static final int ROUNDS = 5;
+    private static final byte[] TINY_FILE =
+            "0 23\n1 42\n34 56\nA 1 2 35\n".getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws IOException
+    {
+        int numberOfFiles = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUMBER_OF_FILES;
+        Path directory = Files.createTempDirectory("tiny");
+        try
+        {
+            // each way gets its own files, since a log left by the constructor would make
+            // openLightweight replace it
+            String[] usualFileTitles = writeFiles(directory.resolve("usual"), numberOfFiles);
+            String[] lightweightFileTitles =
+                    writeFiles(directory.resolve("lightweight"), numberOfFiles);
+            for (int round = 0; round < ROUNDS; round++)
+            {
+                long usualTime = time(usualFileTitles, false);
+                long lightweightTime = time(lightweightFileTitles, true);
+                System.out.printf(
+                        "round %d: constructor %,d ns/file, openLightweight %,d ns/file%n",
+                        round, usualTime / numberOfFiles, lightweightTime / numberOfFiles);
+            }
+        }
+        finally
+        {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static String[] writeFiles(Path directory, int numberOfFiles) throws IOException
+    {
+        Files.createDirectory(directory);
+        String[] fileTitles = new String[numberOfFiles];
+        for (int file = 0; file < numberOfFiles; file++)
+        {
+            Path path = directory.resolve("Station" + file + ".txt");
+            Files.write(path, TINY_FILE);
+            fileTitles[file] = path.toString();
+        }
+        return fileTitles;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(directory))
+        {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+            {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static long time(String[] fileTitles, boolean lightweight) throws IOException
+    {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (String fileTitle : fileTitles)
+        {
+            SensorReadingsParser parser = lightweight
+                    ? SensorReadingsParser.openLightweight(fileTitle)
+                    : new SensorReadingsParser(fileTitle);
+            while (parser.advance())
+            {
+                checksum += parser.getData(2);
+            }
+            parser.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum != 35L * fileTitles.length)
+        {
+            throw new IllegalStateException("Unexpected checksum " + checksum);
+        }
+        return elapsed;
+    }
+}